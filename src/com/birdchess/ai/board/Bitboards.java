@@ -0,0 +1,307 @@
+package com.birdchess.ai.board;
+
+/**
+ * Precomputed attack tables and helper methods for working with bitboards.
+ * A bitboard is a long with one bit per square, where the square index of a
+ * board position is row * 8 + col (so bit 0 is the top-left corner as seen
+ * from white's side, and white pawns move towards lower square indices)
+ *
+ * Sliding pieces use magic bitboards: the pieces that can block a slider on a
+ * given square are masked out of the occupied squares and multiplied by a
+ * "magic" number, which packs them into the top bits of the product. Those bits
+ * index a table of the attacks for that exact set of blockers, so any attack
+ * set takes one multiply and one lookup
+ *
+ * @author agent
+ * @version October 2026
+ */
+public final class Bitboards
+{
+	// Masks of the outer columns, used to stop shifts from wrapping around the board
+	public static final long COLUMN_A = 0x0101010101010101L;
+	public static final long COLUMN_H = 0x8080808080808080L;
+	
+	// Masks of every row, indexed by row
+	public static final long [] ROWS = new long [8];
+	
+	// Masks of every column, indexed by column
+	public static final long [] COLUMNS = new long [8];
+	
+	// Masks of the columns either side of every column, indexed by column
+	public static final long [] ADJACENT_COLUMNS = new long [8];
+	
+	// The squares in front of a pawn of a given side on a given square, on its own column (the front
+	// span), and on its own and the adjacent columns (where enemy pawns stop it from being passed)
+	// 		squares = FRONT_SPANS[side][square]
+	public static final long [][] FRONT_SPANS = new long [2][64];
+	public static final long [][] PASSED_PAWN_MASKS = new long [2][64];
+	
+	// The two rows of squares in front of a king of a given side on a given square, on its own and
+	// the adjacent columns, where its pawns shelter it
+	// 		squares = PAWN_SHIELDS[side][square]
+	public static final long [][] PAWN_SHIELDS = new long [2][64];
+	
+	// Squares attacked by a knight or a king standing on a given square
+	public static final long [] KNIGHT_ATTACKS = new long [64];
+	public static final long [] KING_ATTACKS = new long [64];
+	
+	// Squares attacked by a pawn of a given side standing on a given square
+	// 		attacks = PAWN_ATTACKS[side][square]
+	public static final long [][] PAWN_ATTACKS = new long [2][64];
+	
+	// Every square in a given direction from a given square, excluding the square itself
+	// 		ray = RAYS[direction][square]
+	static final long [][] RAYS = new long [8][64];
+	
+	// The squares strictly between two squares on the same row, column or diagonal, or 0 if the
+	// squares are not on a line
+	// 		squares = BETWEEN[square1][square2]
+	public static final long [][] BETWEEN = new long [64][64];
+	
+	// The whole row, column or diagonal through two squares, or 0 if the squares are not on a line
+	// 		squares = LINE[square1][square2]
+	public static final long [][] LINE = new long [64][64];
+	
+	// Row and column steps of each ray direction; the first four directions
+	// increase the square index and the last four decrease it
+	private static final int [] RAY_ROW_STEPS = {1, 0, 1, 1, -1, 0, -1, -1};
+	private static final int [] RAY_COL_STEPS = {0, 1, 1, -1, 0, -1, -1, 1};
+	
+	// The squares whose pieces can block a rook or bishop on a given square; the last square of
+	// every ray is left out, since a piece there cannot block anything behind it
+	private static final long [] ROOK_MASKS = new long [64];
+	private static final long [] BISHOP_MASKS = new long [64];
+	
+	// The magic number of every square, found by trying random numbers with few bits set until one
+	// mapped every set of blockers to a table entry without clashing with a set that has different
+	// attacks
+	private static final long [] ROOK_MAGICS = {
+		0x0A80008010400020L, 0x40C0004020001008L, 0x2080100020000880L, 0x0900100088210004L, 0x08802C0048008002L, 0x0800844010020820L, 0x2080808002000100L, 0x4200040048802201L,
+		0x0018800028400480L, 0x2121002081004002L, 0x0041805000200082L, 0x9085002100100008L, 0x6841000501100800L, 0x0860800200800401L, 0x0100808002000100L, 0x0202001041008204L,
+		0xA010218000824010L, 0x0400808040002000L, 0x0800808020001000L, 0x01244200100A0021L, 0x8060808008000400L, 0x0408808004000200L, 0x0201008080010200L, 0x600A820000804401L,
+		0x00C0802080004008L, 0x0050004140002000L, 0x1000200080100080L, 0x0820100080800800L, 0x4046480280040080L, 0x0804000202000810L, 0x0001028400081001L, 0x4000808200204401L,
+		0x1000F0C005800084L, 0x08110A0082002040L, 0x0410110045002000L, 0x8000810804801001L, 0x4080080101000410L, 0x0044008004800200L, 0x20A0020001010004L, 0x00D0006082001401L,
+		0x0060400080088020L, 0x0240008020008040L, 0x0002402003090010L, 0x0001000810010020L, 0x0C02000820120004L, 0x0022000410020008L, 0x0000020004010100L, 0x010000A400420001L,
+		0x0941008042002A00L, 0x2000834008200880L, 0x0000108040220200L, 0x0000100080080080L, 0x8000802041001002L, 0x0202001008142600L, 0x0901000E00040500L, 0x00010008B2004100L,
+		0x1042052100418216L, 0x0106018010E24902L, 0x1000412813006001L, 0x1000040900201001L, 0x0421000410020801L, 0x8802004490080102L, 0x0084183043810604L, 0x00001402810040A2L
+	};
+	private static final long [] BISHOP_MAGICS = {
+		0x0208308128002080L, 0x0810042080820080L, 0xCC4202120420D800L, 0x01D1040081120001L, 0x4064042000600040L, 0x020101209124C008L, 0x01040A211029C000L, 0x0000120101084000L,
+		0x8008A12001020080L, 0x0000A04101110100L, 0x808018320401A108L, 0x019004050210021CL, 0x0C64220210000040L, 0x8004008804400001L, 0x4041020804030800L, 0x200500420201A002L,
+		0x0048804202040410L, 0x9002000404582200L, 0xA012006C00240900L, 0x0108200104010080L, 0x8406004422010010L, 0x2002008101010100L, 0x0204001900D21000L, 0x88044B4202008400L,
+		0x5020840020989200L, 0x0201080110708103L, 0x1184100402082140L, 0x0000808008020002L, 0x0240802002020040L, 0x5808020200405203L, 0x01A0810A02080200L, 0x4000B20011230403L,
+		0x2011200903200805L, 0x0014108209081201L, 0x00C0108801100042L, 0x1000400820020201L, 0xE091101400028020L, 0x0000A80042060100L, 0x0108424041008806L, 0x00010E0089820440L,
+		0x0000B00820140941L, 0x0000420220081000L, 0x4084140028042C00L, 0x0000086018004103L, 0x1052082008201100L, 0x22A0144482200200L, 0x2004108086001104L, 0x0010020204450022L,
+		0x0900880110100002L, 0x10A1008210A20000L, 0x2020210080900206L, 0x000030020A020441L, 0x0000101042021100L, 0x0080450438020041L, 0x1004480848108402L, 0x000210090D010480L,
+		0x000A0A0104110440L, 0x0010004048041050L, 0x0003008488680800L, 0x0821010002104400L, 0x0800023004504401L, 0x0860812004101088L, 0x0B00441104011400L, 0x0006101009818189L
+	};
+	
+	// How far to shift the product of the blockers and the magic number to get the table index
+	private static final int [] ROOK_SHIFTS = new int [64];
+	private static final int [] BISHOP_SHIFTS = new int [64];
+	
+	// The attacks of a rook or bishop on every square for every set of blockers
+	// 		attacks = ROOK_TABLES[square][index]
+	private static final long [][] ROOK_TABLES = new long [64][];
+	private static final long [][] BISHOP_TABLES = new long [64][];
+	
+	// The ray directions of each sliding piece
+	private static final int [] ROOK_DIRECTIONS = {0, 1, 4, 5};
+	private static final int [] BISHOP_DIRECTIONS = {2, 3, 6, 7};
+	
+	static
+	{
+		for (int i = 0; i < 8; i++) {
+			ROWS[i] = 0xFFL << (i * 8);
+			COLUMNS[i] = COLUMN_A << i;
+		}
+		for (int i = 0; i < 8; i++)
+			ADJACENT_COLUMNS[i] = (i > 0 ? COLUMNS[i - 1] : 0) | (i < 7 ? COLUMNS[i + 1] : 0);
+		
+		for (int sq = 0; sq < 64; sq++) {
+			int row = sq >> 3;
+			int col = sq & 7;
+			
+			// Knight and king moves are fixed offsets from the square
+			for (int addRow = -2; addRow <= 2; addRow++) {
+				for (int addCol = -2; addCol <= 2; addCol++) {
+					int absRow = Math.abs(addRow);
+					int absCol = Math.abs(addCol);
+					if (absRow + absCol == 3 && absRow != 0 && absCol != 0)
+						KNIGHT_ATTACKS[sq] |= bit(row + addRow, col + addCol);
+					else if (absRow <= 1 && absCol <= 1 && absRow + absCol != 0)
+						KING_ATTACKS[sq] |= bit(row + addRow, col + addCol);
+				}
+			}
+			
+			// Pawns capture diagonally forwards
+			PAWN_ATTACKS[Board.SIDE_WHITE][sq] = bit(row - 1, col - 1) | bit(row - 1, col + 1);
+			PAWN_ATTACKS[Board.SIDE_BLACK][sq] = bit(row + 1, col - 1) | bit(row + 1, col + 1);
+			
+			// White's pawns look towards row 0 and black's towards row 7
+			long whiteAhead = 0;
+			long blackAhead = 0;
+			for (int r = 0; r < row; r++)
+				whiteAhead |= ROWS[r];
+			for (int r = row + 1; r < 8; r++)
+				blackAhead |= ROWS[r];
+			long columns = COLUMNS[col] | ADJACENT_COLUMNS[col];
+			FRONT_SPANS[Board.SIDE_WHITE][sq] = whiteAhead & COLUMNS[col];
+			FRONT_SPANS[Board.SIDE_BLACK][sq] = blackAhead & COLUMNS[col];
+			PASSED_PAWN_MASKS[Board.SIDE_WHITE][sq] = whiteAhead & columns;
+			PASSED_PAWN_MASKS[Board.SIDE_BLACK][sq] = blackAhead & columns;
+			long whiteShield = (row >= 1 ? ROWS[row - 1] : 0) | (row >= 2 ? ROWS[row - 2] : 0);
+			long blackShield = (row <= 6 ? ROWS[row + 1] : 0) | (row <= 5 ? ROWS[row + 2] : 0);
+			PAWN_SHIELDS[Board.SIDE_WHITE][sq] = whiteShield & columns;
+			PAWN_SHIELDS[Board.SIDE_BLACK][sq] = blackShield & columns;
+			
+			// Walk each direction until the edge of the board
+			for (int dir = 0; dir < 8; dir++) {
+				int r = row + RAY_ROW_STEPS[dir];
+				int c = col + RAY_COL_STEPS[dir];
+				while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+					RAYS[dir][sq] |= bit(r, c);
+					r += RAY_ROW_STEPS[dir];
+					c += RAY_COL_STEPS[dir];
+				}
+			}
+		}
+		
+		// Every square on a ray from a square is on a line with it; the direction opposite to
+		// direction d is d ^ 4
+		for (int sq = 0; sq < 64; sq++) {
+			for (int dir = 0; dir < 8; dir++) {
+				long ray = RAYS[dir][sq];
+				long line = ray | RAYS[dir ^ 4][sq] | (1L << sq);
+				while (ray != 0) {
+					int other = Long.numberOfTrailingZeros(ray);
+					ray &= ray - 1;
+					BETWEEN[sq][other] = RAYS[dir][sq] & ~RAYS[dir][other] & ~(1L << other);
+					LINE[sq][other] = line;
+				}
+			}
+		}
+		
+		initMagics(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_SHIFTS, ROOK_TABLES, ROOK_MAGICS);
+		initMagics(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_TABLES, BISHOP_MAGICS);
+	}
+	
+	private Bitboards ()
+	{
+	}
+	
+	/**
+	 * Gets a bitboard with only the bit of a given row and column set
+	 * @param row the row of the square
+	 * @param col the column of the square
+	 * @return the bitboard of the square, or 0 if the square is off the board
+	 */
+	public static long bit (int row, int col)
+	{
+		if (row < 0 || row > 7 || col < 0 || col > 7)
+			return 0;
+		return 1L << (row * 8 + col);
+	}
+	
+	/**
+	 * Builds the magic bitboard tables of a sliding piece for every square from its magic numbers
+	 * @param directions the ray directions the piece moves in
+	 * @param masks the array to fill with the blocking squares of every square
+	 * @param shifts the array to fill with the index shifts of every square
+	 * @param tables the array to fill with the attack tables of every square
+	 * @param magics the magic numbers of every square
+	 */
+	private static void initMagics (int [] directions, long [] masks, int [] shifts, long [][] tables, long [] magics)
+	{
+		for (int sq = 0; sq < 64; sq++) {
+			masks[sq] = blockerMask(sq, directions);
+			shifts[sq] = 64 - Long.bitCount(masks[sq]);
+			tables[sq] = new long [1 << Long.bitCount(masks[sq])];
+			
+			// Work out the attacks for every subset of the mask by walking the rays, and store them
+			// where the magic number sends that subset
+			long subset = 0;
+			do {
+				long attacks = 0;
+				for (int dir : directions)
+					attacks |= rayAttacks(dir, sq, subset);
+				tables[sq][(int) ((subset * magics[sq]) >>> shifts[sq])] = attacks;
+				subset = (subset - masks[sq]) & masks[sq];
+			} while (subset != 0);
+		}
+	}
+	
+	/**
+	 * Gets the squares whose pieces can block a sliding piece on a given square
+	 * @param sq the square of the sliding piece
+	 * @param directions the ray directions the piece moves in
+	 * @return the blocking squares, not including the last square of each ray
+	 */
+	private static long blockerMask (int sq, int [] directions)
+	{
+		long mask = 0;
+		for (int dir : directions) {
+			long ray = RAYS[dir][sq];
+			if (ray != 0) {
+				// The last square is the highest bit for rays going up the square indices, and the
+				// lowest bit for rays going down
+				long last = dir < 4 ? Long.highestOneBit(ray) : Long.lowestOneBit(ray);
+				mask |= ray ^ last;
+			}
+		}
+		return mask;
+	}
+	
+	/**
+	 * Gets the squares attacked along a ray, stopping at (and including) the first blocker
+	 * @param dir the direction of the ray
+	 * @param sq the square the ray starts from
+	 * @param occupied the occupied squares of the board
+	 * @return the attacked squares in the given direction
+	 */
+	private static long rayAttacks (int dir, int sq, long occupied)
+	{
+		long attacks = RAYS[dir][sq];
+		long blockers = attacks & occupied;
+		if (blockers != 0) {
+			// The nearest blocker is the lowest bit for rays going up the square indices,
+			// and the highest bit for rays going down
+			int blocker = dir < 4 ? Long.numberOfTrailingZeros(blockers) : 63 - Long.numberOfLeadingZeros(blockers);
+			attacks ^= RAYS[dir][blocker];
+		}
+		return attacks;
+	}
+	
+	/**
+	 * Gets the squares a rook on a given square attacks
+	 * @param sq the square of the rook
+	 * @param occupied the occupied squares of the board
+	 * @return the attacked squares, including blocking pieces of either colour
+	 */
+	public static long rookAttacks (int sq, long occupied)
+	{
+		return ROOK_TABLES[sq][(int) (((occupied & ROOK_MASKS[sq]) * ROOK_MAGICS[sq]) >>> ROOK_SHIFTS[sq])];
+	}
+	
+	/**
+	 * Gets the squares a bishop on a given square attacks
+	 * @param sq the square of the bishop
+	 * @param occupied the occupied squares of the board
+	 * @return the attacked squares, including blocking pieces of either colour
+	 */
+	public static long bishopAttacks (int sq, long occupied)
+	{
+		return BISHOP_TABLES[sq][(int) (((occupied & BISHOP_MASKS[sq]) * BISHOP_MAGICS[sq]) >>> BISHOP_SHIFTS[sq])];
+	}
+	
+	/**
+	 * Gets the squares a queen on a given square attacks
+	 * @param sq the square of the queen
+	 * @param occupied the occupied squares of the board
+	 * @return the attacked squares, including blocking pieces of either colour
+	 */
+	public static long queenAttacks (int sq, long occupied)
+	{
+		return rookAttacks(sq, occupied) | bishopAttacks(sq, occupied);
+	}
+}
@@ -1,18 +1,10 @@
 package com.birdchess.ai.board;
 
 import java.awt.Color;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.PriorityQueue;
+import java.util.Arrays;
 import java.util.Scanner;
 
 import com.birdchess.common.Game;
@@ -27,7 +19,8 @@ import com.birdchess.ai.board.*;
  */
 public class Board 
 {
-	// A hard-coded table of each piece's position score at every stage of the game
+	// A hard-coded table of each piece's position score early and late in the game. The board's
+	// evaluation blends the two versions by the game phase (see getPhase)
 	// 		score = whitePiecePositionScores[version][pieceID][row][col]
 	public static final int whitePiecePositionScores [] [] [] [] = {
 		// Early game version
@@ -99,75 +92,6 @@ public class Board
 				{1,0,4,4,4,4,0,1}
 			}
 		},
-		// Mid game version
-		{
-			// Bishop position scores for white
-			{
-				{3,3,3,3,3,3,3,3},
-				{3,3,3,3,3,3,3,3},
-				{7,3,3,3,3,3,3,7},
-				{7,6,3,6,3,6,7,7},
-				{7,3,7,3,3,3,3,7},
-				{1,3,3,3,3,3,3,1},
-				{1,1,1,1,1,1,1,1},
-				{3,3,3,3,3,3,3,3}
-			},
-			// King position scores for white
-			{
-				{0,0,0,0,0,0,0,0},
-				{10,10,10,10,10,10,10,10},
-				{0,0,0,0,0,0,0,0},
-				{0,10,10,10,10,10,10,0},
-				{0,10,10,10,10,10,10,0},
-				{0,10,10,10,10,10,10,0},
-				{10,10,10,10,10,10,10,10},
-				{60,60,60,25,30,25,60,60}
-			},
-			// Knight position scores for white
-			{
-				{3,3,3,3,3,3,3,3},
-				{1,1,1,1,1,1,1,1},
-				{3,3,3,3,3,3,3,3},
-				{3,4,3,4,4,3,4,4},
-				{3,4,3,4,3,4,4,3},
-				{3,3,3,3,3,3,3,3},
-				{1,1,1,1,1,1,1,1},
-				{0,0,0,0,0,0,0,0}
-			},
-			// Pawn position scores for white
-			{
-				{300,300,300,300,300,300,300,300},
-				{110,110,110,110,110,110,110,110},
-				{20,10,20,10,20,10,20,10},
-				{10,20,10,20,10,20,10,20},
-				{4,4,3,4,4,4,4,4},
-				{2,2,4,2,5,2,4,2},
-				{1,2,3,3,2,3,3,1},
-				{0,0,0,0,0,0,0,0}
-			},
-			// Queen position scores for white
-			{
-				{6,6,6,6,6,6,6,6},
-				{3,3,3,3,3,3,3,3},
-				{3,3,3,3,3,3,3,3},
-				{3,3,3,3,3,3,3,8},
-				{6,6,6,6,6,6,6,6},
-				{6,6,6,6,6,6,6,6},
-				{6,6,6,6,6,6,6,6},
-				{0,0,0,3,3,0,0,0}
-			},
-			// Rook position scores for white
-			{
-				{3,3,3,3,3,3,3,3},
-				{3,1,1,1,1,1,1,3},
-				{1,3,3,3,3,3,3,1},
-				{1,3,3,3,3,3,3,1},
-				{3,3,3,3,3,3,3,3},
-				{3,3,3,3,3,3,3,3},
-				{1,3,3,3,3,3,3,1},
-				{1,0,4,4,4,4,0,1}
-			}
-		},
 		// Late game version
 		{
 			// Bishop position scores for white
@@ -247,33 +171,170 @@ public class Board
 	public static final int QUEEN = 4;
 	public static final int ROOK = 5;
 	
-	// An array of pieces to represent the board
-	private Piece [][] board;
+	// Constants for the sides, used to index the bitboards
+	// A piece code is side * 6 + piece ID
+	public static final int SIDE_WHITE = 0;
+	public static final int SIDE_BLACK = 1;
+	
+	// The piece code of an empty square
+	public static final int EMPTY = -1;
+	
+	// The score of a lost board, beyond any evaluation of a board that is still being played; the
+	// search counts mates down from it by distance
+	public static final int SCORE_MATE = 1000000;
+	
+	// Flags for the castling rights still available
+	public static final int CASTLE_WHITE_KINGSIDE = 1;
+	public static final int CASTLE_WHITE_QUEENSIDE = 2;
+	public static final int CASTLE_BLACK_KINGSIDE = 4;
+	public static final int CASTLE_BLACK_QUEENSIDE = 8;
+	
+	// The material value of each piece, indexed by piece ID
+	static final int [] PIECE_VALUES = {325, 400000, 320, 100, 975, 500};
+	
+	// Piece IDs from least to most valuable, the order in which pieces join an exchange
+	private static final int [] EXCHANGE_ORDER = {PAWN, KNIGHT, BISHOP, ROOK, QUEEN, KING};
+	
+	// The most material an exchange may lose and still count as even when ordering captures, so
+	// that trading a bishop for a knight is not put off as a losing capture
+	private static final int SEE_EVEN_MARGIN = 50;
+	
+	// Shared piece objects handed out by getPiece, indexed by piece code
+	private static final Piece [] PIECES = {
+		new Bishop (Color.WHITE), new King (Color.WHITE), new Knight (Color.WHITE),
+		new Pawn (Color.WHITE), new Queen (Color.WHITE), new Rook (Color.WHITE),
+		new Bishop (Color.BLACK), new King (Color.BLACK), new Knight (Color.BLACK),
+		new Pawn (Color.BLACK), new Queen (Color.BLACK), new Rook (Color.BLACK)
+	};
+	
+	// The castling rights that survive a move from or to each square
+	private static final int [] CASTLING_MASKS = new int [64];
+	
+	static
+	{
+		for (int sq = 0; sq < 64; sq++)
+			CASTLING_MASKS[sq] = 15;
+		CASTLING_MASKS[60] = 15 & ~(CASTLE_WHITE_KINGSIDE | CASTLE_WHITE_QUEENSIDE);
+		CASTLING_MASKS[63] = 15 & ~CASTLE_WHITE_KINGSIDE;
+		CASTLING_MASKS[56] = 15 & ~CASTLE_WHITE_QUEENSIDE;
+		CASTLING_MASKS[4] = 15 & ~(CASTLE_BLACK_KINGSIDE | CASTLE_BLACK_QUEENSIDE);
+		CASTLING_MASKS[7] = 15 & ~CASTLE_BLACK_KINGSIDE;
+		CASTLING_MASKS[0] = 15 & ~CASTLE_BLACK_QUEENSIDE;
+	}
 	
-	// A map to keep track of how many times each piece moved
-	protected HashMap<Piece, Integer> piecesMovedCount;
+	// The middle game and endgame position scores of every piece code on every square, taken from the
+	// early and late game versions of the position score table, from white's point of view (black's
+	// pieces count against it)
+	// 		score = MIDDLE_GAME_SCORES[pieceCode * 64 + square]
+	private static final int [] MIDDLE_GAME_SCORES = new int [12 * 64];
+	private static final int [] ENDGAME_SCORES = new int [12 * 64];
 	
-	// Positions of the kings
-	protected Position whiteKing;
-	protected Position blackKing;
+	// How much each piece ID counts towards the game phase; a full set of pieces adds up to MAX_PHASE
+	private static final int [] PHASE_WEIGHTS = {1, 0, 1, 0, 4, 2};
+	public static final int MAX_PHASE = 24;
 	
-	// Piece counts
-	protected int pieceCount;
-	protected int whitePieceCount;
-	protected int blackPieceCount;
+	// Pawn structure penalties for a side's own pawns, as {middle game, endgame}
+	private static final int [] DOUBLED_PAWN = {-10, -20};
+	private static final int [] ISOLATED_PAWN = {-10, -15};
+	private static final int [] BACKWARD_PAWN = {-8, -10};
+	
+	// Bonuses for a passed pawn by its row counted from its own side's back row, and an extra
+	// endgame bonus when the square in front of it is empty
+	private static final int [] PASSED_PAWN_MIDDLE_GAME = {0, 5, 10, 15, 25, 40, 60, 0};
+	private static final int [] PASSED_PAWN_ENDGAME = {0, 10, 20, 35, 60, 90, 130, 0};
+	private static final int [] FREE_PASSED_PAWN = {0, 0, 5, 10, 20, 30, 45, 0};
+	
+	// Middle game bonus for every pawn sheltering its king
+	private static final int PAWN_SHIELD = 8;
+	
+	static
+	{
+		for (int piece = 0; piece < 12; piece++) {
+			int[][] middleGame = whitePiecePositionScores[0][piece % 6];
+			int[][] endgame = whitePiecePositionScores[1][piece % 6];
+			for (int sq = 0; sq < 64; sq++) {
+				// Black looks up the table upside down
+				int r = piece < 6 ? sq >> 3 : 7 - (sq >> 3);
+				int sign = piece < 6 ? 1 : -1;
+				MIDDLE_GAME_SCORES[piece * 64 + sq] = sign * middleGame[r][sq & 7];
+				ENDGAME_SCORES[piece * 64 + sq] = sign * endgame[r][sq & 7];
+			}
+		}
+	}
+	
+	// A bitboard for each type of piece of each side, indexed by piece code
+	private long [] pieces;
+	
+	// The squares occupied by each side, and by either side
+	private long [] sideOccupancy;
+	private long occupied;
+	
+	// The piece code on every square (row * 8 + col), kept alongside the bitboards
+	// for quick lookups of what is on a given square
+	private int [] squares;
+	
+	// The castling rights still available to both sides
+	protected int castlingRights;
+	
+	// The square a pawn that just moved two squares can be captured on in passing, or -1
+	protected int enPassantSquare;
 	
 	protected int consecutiveUselessMovesCount;
 	
+	// The side whose turn it is to move
+	protected int sideToMove;
+	
+	// The Zobrist hash key of the board, kept up to date as moves are made and taken back
+	private long key;
+	
+	// The material of each side and the middle game and endgame position scores of every piece
+	// (white's minus black's), kept up to date as pieces are placed and removed. The two position
+	// scores are blended by the game phase: the sum of PHASE_WEIGHTS over all pieces on the board
+	private int [] material;
+	private int middleGameScore;
+	private int endgameScore;
+	private int phase;
+	
+	// The Zobrist hash key of only the pawns, for looking up pawn structure scores
+	private long pawnKey;
+	
+	// The results of the last pawn structure evaluation, filled in by evaluatePawnStructure
+	private int pawnMiddleGameScore;
+	private int pawnEndgameScore;
+	private long passedPawns;
+	
+	// One record per move made, holding what unmakeMove needs to take the move back:
+	// 		bits 0-24: the packed move, bits 25-28: castling rights, bits 29-35: en passant square + 1,
+	// 		bits 36-51: consecutive passive moves count, bit 52: side to move
+	private long [] undoStack;
+	private int undoCount;
+	
+	// The hash key of the board before each move in undoStack, for finding repeated positions. Boards
+	// copied from the game's board keep the keys of the moves played in the game so far
+	private long [] keyStack;
+	
+	// The pieces giving check, the pieces pinned to the king and the squares the other pieces have
+	// to move to of the board at each undo depth, worked out the first time moves are generated
+	// there, so that the hash move, the killer moves and every stage of generating share them.
+	// checkInfoSide is the side they were worked out for, or -1 if they have not been yet
+	// 		checkers = checkersStack[undoCount]
+	private int [] checkInfoSide;
+	private long [] checkersStack;
+	private long [] pinnedStack;
+	private long [] checkMaskStack;
+	
+	// A list for generating the moves of a single piece, made the first time it is needed
+	private MoveList pieceMoves;
+	
+	// The material gained after each capture of an exchange, filled in by see
+	private final int [] exchangeGains = new int [32];
+	
 	/**
 	 * Constructs a new chess board object with pieces in their default starting positions
 	 */
 	public Board ()
 	{
-		board = new Piece[8][8];
 		startNewGame();
-		
-		piecesMovedCount = new HashMap<Piece, Integer>();
-		consecutiveUselessMovesCount = 0;
 	}
 	
 	/**
@@ -281,69 +342,79 @@ public class Board
 	 */
 	public void startNewGame()
 	{
-		// Black
-		board [0][0] = new Rook (Color.BLACK);
-		board [0][1] = new Knight (Color.BLACK);
-		board [0][2] = new Bishop (Color.BLACK);
-		board [0][3] = new Queen (Color.BLACK);
-		board [0][4] = new King (Color.BLACK);
-		board [0][5] = new Bishop (Color.BLACK);
-		board [0][6] = new Knight (Color.BLACK);
-		board [0][7] = new Rook (Color.BLACK);
-		board [1][0] = new Pawn (Color.BLACK);
-		board [1][1] = new Pawn (Color.BLACK);
-		board [1][2] = new Pawn (Color.BLACK);
-		board [1][3] = new Pawn (Color.BLACK);
-		board [1][4] = new Pawn (Color.BLACK);
-		board [1][5] = new Pawn (Color.BLACK);
-		board [1][6] = new Pawn (Color.BLACK);
-		board [1][7] = new Pawn (Color.BLACK);
-		// White
-		board [7][0] = new Rook (Color.WHITE);
-		board [7][1] = new Knight (Color.WHITE);
-		board [7][2] = new Bishop (Color.WHITE);
-		board [7][3] = new Queen (Color.WHITE);
-		board [7][4] = new King (Color.WHITE);
-		board [7][5] = new Bishop (Color.WHITE);
-		board [7][6] = new Knight (Color.WHITE);
-		board [7][7] = new Rook (Color.WHITE);
-		board [6][0] = new Pawn (Color.WHITE);
-		board [6][1] = new Pawn (Color.WHITE);
-		board [6][2] = new Pawn (Color.WHITE);
-		board [6][3] = new Pawn (Color.WHITE);
-		board [6][4] = new Pawn (Color.WHITE);
-		board [6][5] = new Pawn (Color.WHITE);
-		board [6][6] = new Pawn (Color.WHITE);
-		board [6][7] = new Pawn (Color.WHITE);
-		
-		pieceCount = 32;
-		whitePieceCount = blackPieceCount = 16;
-		
-		blackKing = new Position (0, 4);
-		whiteKing = new Position (7, 4);
+		clear();
+		
+		int [] backRow = {ROOK, KNIGHT, BISHOP, QUEEN, KING, BISHOP, KNIGHT, ROOK};
+		for (int col = 0; col < 8; col++) {
+			// Black
+			putPiece(SIDE_BLACK * 6 + backRow[col], col);
+			putPiece(SIDE_BLACK * 6 + PAWN, 8 + col);
+			// White
+			putPiece(SIDE_WHITE * 6 + PAWN, 48 + col);
+			putPiece(SIDE_WHITE * 6 + backRow[col], 56 + col);
+		}
+		
+		castlingRights = CASTLE_WHITE_KINGSIDE | CASTLE_WHITE_QUEENSIDE
+				| CASTLE_BLACK_KINGSIDE | CASTLE_BLACK_QUEENSIDE;
+		key = computeKey();
 	}
-
+	
 	/**
 	 * Constructs a new board object from a pre-existing board object
 	 * @param b the pre-existing object to construct the board from
 	 */
 	public Board (Board b)
 	{
-		board = new Piece[8][8];
-		
 		// Copy over the pieces where they are on the board
-		for (int r = 0; r < board.length; r++)
-			for (int c = 0; c < board[r].length; c++)
-				board[r][c] = b.board[r][c];
+		pieces = b.pieces.clone();
+		sideOccupancy = b.sideOccupancy.clone();
+		occupied = b.occupied;
+		squares = b.squares.clone();
 		
 		// Copy over other useful information
-		piecesMovedCount = new HashMap<Piece, Integer>(b.piecesMovedCount);
-		whiteKing = new Position (b.whiteKing);
-		blackKing = new Position (b.blackKing);
+		this.castlingRights = b.castlingRights;
+		this.enPassantSquare = b.enPassantSquare;
 		this.consecutiveUselessMovesCount = b.consecutiveUselessMovesCount;
-		this.pieceCount = b.pieceCount;
-		this.whitePieceCount = b.whitePieceCount;
-		this.blackPieceCount = b.blackPieceCount;
+		this.sideToMove = b.sideToMove;
+		this.key = b.key;
+		this.material = b.material.clone();
+		this.middleGameScore = b.middleGameScore;
+		this.endgameScore = b.endgameScore;
+		this.phase = b.phase;
+		this.pawnKey = b.pawnKey;
+		this.undoStack = b.undoStack.clone();
+		this.undoCount = b.undoCount;
+		this.keyStack = b.keyStack.clone();
+		clearCheckInfo(undoStack.length + 1);
+	}
+	
+	/**
+	 * Removes every piece from the board and resets the game state
+	 */
+	private void clear ()
+	{
+		pieces = new long [12];
+		sideOccupancy = new long [2];
+		occupied = 0;
+		squares = new int [64];
+		for (int sq = 0; sq < 64; sq++)
+			squares[sq] = EMPTY;
+		
+		castlingRights = 0;
+		enPassantSquare = -1;
+		consecutiveUselessMovesCount = 0;
+		sideToMove = SIDE_WHITE;
+		key = 0;
+		material = new int [2];
+		middleGameScore = 0;
+		endgameScore = 0;
+		phase = 0;
+		pawnKey = 0;
+		
+		undoStack = new long [256];
+		undoCount = 0;
+		keyStack = new long [256];
+		clearCheckInfo(undoStack.length + 1);
 	}
 	
 	/**
@@ -357,12 +428,12 @@ public class Board
 		// Open the file
 		Scanner file = new Scanner (input);
 		String version = file.nextLine();
-		pieceCount = 0;
 		
 		// Reset data structures
-		board = new Piece[8][8];
-		piecesMovedCount = new HashMap<Piece, Integer>();
-		consecutiveUselessMovesCount = 0;
+		clear();
+		
+		// Whether the piece on each square has moved, used to work out the castling rights
+		boolean [] moved = new boolean [64];
 		
 		// Loop to read in information for every board position
 		for (int i = 0; i < 8; i++) {
@@ -370,54 +441,53 @@ public class Board
 				int piece = file.nextInt();
 				int timesMoved = file.nextInt();
 				String color = file.next();
-				Color side = color.equals("w") ? Color.WHITE : Color.black;
-				
-				// Increase piece counters if there is a piece at this position
-				if (piece != -1)
-					incrementPieceCount(side);
+				int side = color.equals("w") ? SIDE_WHITE : SIDE_BLACK;
 				
-				// Initialize this position of the board depending on what the piece is
-				switch (piece)
-				{
-				case Board.BISHOP:
-					board[i][j] = new Bishop (side);
-					break;
-				case Board.KING:
-					board[i][j] = new King (side);
-					break;
-				case Board.KNIGHT:
-					board[i][j] = new Knight (side);
-					break;
-				case Board.PAWN:
-					board[i][j] = new Pawn (side);
-					break;
-				case Board.QUEEN:
-					board[i][j] = new Queen (side);
-					break;
-				case Board.ROOK:
-					board[i][j] = new Rook (side);
-					break;
-				case -1:
-					board[i][j] = null;
-					break;
-				default:
+				// Place the piece on this position of the board if there is one
+				if (piece == -1)
+					continue;
+				if (piece < BISHOP || piece > ROOK)
 					throw new IOException ("Bad save file");
-				}
-				
-				// If the piece has moved, put how many times it has moved into the map
-				if (timesMoved != 0) {
-					piecesMovedCount.put(board[i][j], timesMoved);
-				}
+				putPiece(side * 6 + piece, i * 8 + j);
+				moved[i * 8 + j] = timesMoved != 0;
 			}
 		}
 		
-		whiteKing = new Position (file.nextInt(), file.nextInt());
-		blackKing = new Position (file.nextInt(), file.nextInt());
+		// The king positions are stored for older versions, but are known from the bitboards
+		for (int i = 0; i < 4; i++)
+			file.nextInt();
+		
+		// Castling is still allowed for kings and rooks that have never left their starting squares
+		if (hasUnmovedPiece(SIDE_WHITE * 6 + KING, 60, moved)) {
+			if (hasUnmovedPiece(SIDE_WHITE * 6 + ROOK, 63, moved))
+				castlingRights |= CASTLE_WHITE_KINGSIDE;
+			if (hasUnmovedPiece(SIDE_WHITE * 6 + ROOK, 56, moved))
+				castlingRights |= CASTLE_WHITE_QUEENSIDE;
+		}
+		if (hasUnmovedPiece(SIDE_BLACK * 6 + KING, 4, moved)) {
+			if (hasUnmovedPiece(SIDE_BLACK * 6 + ROOK, 7, moved))
+				castlingRights |= CASTLE_BLACK_KINGSIDE;
+			if (hasUnmovedPiece(SIDE_BLACK * 6 + ROOK, 0, moved))
+				castlingRights |= CASTLE_BLACK_QUEENSIDE;
+		}
+		key = computeKey();
 		
 		// Return the Scanner so that it may be further used to read other parts of the file
 		return file;
 	}
 	
+	/**
+	 * Checks whether a given piece is on a given square and has not moved
+	 * @param piece the piece code to look for
+	 * @param sq the square to look on
+	 * @param moved whether the piece on each square has moved
+	 * @return true if the piece is there and has not moved, false otherwise
+	 */
+	private boolean hasUnmovedPiece (int piece, int sq, boolean [] moved)
+	{
+		return squares[sq] == piece && !moved[sq];
+	}
+	
 	/**
 	 * Gets the Piece object at a given location
 	 * @param p the given location specified in a Position object
@@ -425,9 +495,7 @@ public class Board
 	 */
 	public Piece getPiece (Position p)
 	{
-		if (p.row >= 0 && p.row < board.length && p.col >= 0 && p.col < board[0].length)
-			return board[p.row][p.col];
-		return null;
+		return getPiece(p.row, p.col);
 	}
 	
 	/**
@@ -438,8 +506,8 @@ public class Board
 	 */
 	public Piece getPiece (int r, int c)
 	{
-		if (r >= 0 && r < board.length && c >= 0 && c < board[0].length)
-			return board[r][c];
+		if (r >= 0 && r < 8 && c >= 0 && c < 8 && squares[r * 8 + c] != EMPTY)
+			return PIECES[squares[r * 8 + c]];
 		return null;
 	}
 	
@@ -449,7 +517,7 @@ public class Board
 	 */
 	public int length ()
 	{
-		return board.length;
+		return 8;
 	}
 	
 	/**
@@ -458,61 +526,673 @@ public class Board
 	 */
 	public int width ()
 	{
-		return board[0].length;
+		return 8;
 	}
 	
 	/**
-	 * Generates all possible moves by a given colour in this board
-	 * @param side the side or colour for which to generate the moves
-	 * @return a priority queue of all possible moves the given side can make, in order from best to worst
-	 * 			using a very rough estimate
+	 * Generates all possible moves of the piece at a given location
+	 * @param pos the location of the piece
+	 * @return a list of the moves the piece can make, or an empty list if the location is empty
 	 */
-	public PriorityQueue<Move> getAllPossibleMovesBySide (Color side)
+	public ArrayList<Move> generateMovesFrom (Position pos)
 	{
-		// For some reason making a list first is a lot faster
-		List<Move> moves = new ArrayList<Move>();
-		for (int row = 0; row < board.length; row++) {
-			for (int col = 0; col < board[0].length; col++) {
-				if (board[row][col] != null && board[row][col].getColor() == side) {
-					// Add all possible moves each piece of the specified colour can make to the big list
-					moves.addAll(board[row][col].generateLegalMoves(this, new Position(row, col)));
-				}
+		MoveList list = new MoveList();
+		int sq = pos.row * 8 + pos.col;
+		if (squares[sq] != EMPTY)
+			generateMoves(squares[sq] / 6, 1L << sq, true, true, list);
+		return toMoves(list);
+	}
+	
+	/**
+	 * Converts generated moves into Move objects for the rest of the game. Promotions are listed once
+	 * per target square and left without a promotion piece, so the player's upgrade piece is used
+	 * @param list the generated moves
+	 * @return a list of Move objects for the moves
+	 */
+	private ArrayList<Move> toMoves (MoveList list)
+	{
+		ArrayList<Move> moves = new ArrayList<Move>(list.size);
+		for (int i = 0; i < list.size; i++) {
+			int move = list.moves[i];
+			if (Moves.getFlag(move) == Moves.FLAG_PROMOTION) {
+				if (Moves.getPromotion(move) != QUEEN)
+					continue;
+				Move promotion = toMove(move);
+				promotion.promotion = null;
+				moves.add(promotion);
+			} else {
+				moves.add(toMove(move));
 			}
 		}
+		return moves;
+	}
+	
+	/**
+	 * Converts a packed move into a Move object
+	 * @param move the packed move
+	 * @return a Move object describing the move, with the rook's move attached for castles, the
+	 * 			captured pawn attached for en passant captures, and the promotion piece set for promotions
+	 */
+	public Move toMove (int move)
+	{
+		int from = Moves.getSource(move);
+		int to = Moves.getTarget(move);
+		int side = Moves.getPiece(move) / 6;
+		
+		switch (Moves.getFlag(move))
+		{
+		case Moves.FLAG_CASTLE:
+			int rookFrom = to > from ? from + 3 : from - 4;
+			int rookTo = to > from ? from + 1 : from - 1;
+			return new Move(toPosition(from), toPosition(to),
+					new Move(toPosition(rookFrom), toPosition(rookTo), null), this);
+		case Moves.FLAG_EN_PASSANT:
+			return new Move(toPosition(from), toPosition(to),
+					new Move(toPosition(side == SIDE_WHITE ? to + 8 : to - 8), null, null), this);
+		case Moves.FLAG_PROMOTION:
+			Move promotion = new Move(toPosition(from), toPosition(to), this);
+			promotion.promotion = PIECES[side * 6 + Moves.getPromotion(move)];
+			return promotion;
+		default:
+			return new Move(toPosition(from), toPosition(to), this);
+		}
+	}
+	
+	/**
+	 * Packs a Move object into an int for this board
+	 * @param move the Move object
+	 * @return the packed move
+	 */
+	private int encodeMove (Move move)
+	{
+		int from = move.source.row * 8 + move.source.col;
+		int to = move.target.row * 8 + move.target.col;
+		int piece = squares[from];
+		int side = piece / 6;
+		int id = piece % 6;
+		
+		if (id == KING && Math.abs(to - from) == 2)
+			return Moves.create(from, to, piece, EMPTY, Moves.FLAG_CASTLE, 0);
+		if (id == PAWN && to == enPassantSquare)
+			return Moves.create(from, to, piece, (side ^ 1) * 6 + PAWN, Moves.FLAG_EN_PASSANT, 0);
+		if (id == PAWN && (to < 8 || to >= 56)) {
+			int promotion = move.promotion != null ? move.promotion.getPieceID() : getPromotionPieceID(side);
+			return Moves.create(from, to, piece, squares[to], Moves.FLAG_PROMOTION, promotion);
+		}
+		return Moves.create(from, to, piece, squares[to], Moves.FLAG_NONE, 0);
+	}
+	
+	/**
+	 * Generates all legal moves of a side
+	 * @param side the side to generate the moves for
+	 * @param list the list to add the packed moves to
+	 */
+	public void generateMoves (int side, MoveList list)
+	{
+		list.clear();
+		generateMoves(side, sideOccupancy[side], true, true, list);
+	}
+	
+	/**
+	 * Generates all legal capture moves of a side, including en passant captures
+	 * @param side the side to generate the moves for
+	 * @param list the list to add the packed moves to
+	 */
+	public void generateCaptures (int side, MoveList list)
+	{
+		list.clear();
+		generateMoves(side, sideOccupancy[side], true, false, list);
+	}
+	
+	/**
+	 * Generates all legal moves of a side that do not capture anything, including castling
+	 * @param side the side to generate the moves for
+	 * @param list the list to add the packed moves to
+	 */
+	public void generateQuiets (int side, MoveList list)
+	{
+		list.clear();
+		generateMoves(side, sideOccupancy[side], false, true, list);
+	}
+	
+	/**
+	 * Checks whether a move, such as one remembered from another board, is legal on this board
+	 * @param side the side to move
+	 * @param move the packed move; only its source square, target square, flag and promotion piece
+	 * 			are used
+	 * @return the packed move as it is generated on this board, or Moves.NO_MOVE if it is not legal
+	 */
+	public int toLegalMove (int side, int move)
+	{
+		int from = Moves.getSource(move);
+		if (move == Moves.NO_MOVE || squares[from] == EMPTY || squares[from] / 6 != side)
+			return Moves.NO_MOVE;
 		
-		return new PriorityQueue<Move> (moves);
+		// Only the moves of the one piece are generated
+		if (pieceMoves == null)
+			pieceMoves = new MoveList();
+		pieceMoves.clear();
+		generateMoves(side, 1L << from, true, true, pieceMoves);
+		for (int i = 0; i < pieceMoves.size; i++) {
+			if (Moves.isSameMove(pieceMoves.moves[i], move))
+				return pieceMoves.moves[i];
+		}
+		return Moves.NO_MOVE;
 	}
 	
 	/**
-	 * Generates all possible capture moves by a given colour in this board
-	 * @param side the side or colour for which to generate the capture moves
-	 * @return a priority queue of all possible capture moves the given side can make, in order from best to worst
-	 * 			using a very rough estimate
+	 * Generates the legal moves of a side's pieces on a given set of squares. The pieces giving check
+	 * and the pieces pinned to the king are worked out first, so that every move generated is legal
+	 * without having to make it: in check, the other pieces may only capture the checking piece or
+	 * block its line, and a pinned piece may only move along the line between its king and the
+	 * pinning piece
+	 * @param side the side to generate the moves for
+	 * @param sources the squares of the pieces to generate the moves of
+	 * @param captures true to generate moves that capture a piece
+	 * @param quiets true to generate moves that do not capture anything
+	 * @param list the list to add the packed moves to
 	 */
-	public PriorityQueue<Move> getAllCaptureMovesBySide (Color side)
+	private void generateMoves (int side, long sources, boolean captures, boolean quiets, MoveList list)
 	{
-		// For some reason making a list first is a lot faster
-		List<Move> moves = new ArrayList<Move>();
-		for (int row = 0; row < board.length; row++) {
-			for (int col = 0; col < board[0].length; col++) {
-				if (board[row][col] != null && board[row][col].getColor() == side) {
-					// Add all possible moves each piece of the specified colour can make to a temporary list
-					List<Move> legalMoves = board[row][col].generateLegalMoves(this, new Position(row, col));
-					// Delete the moves that are not capture moves
-					for (int i = 0; i < legalMoves.size(); i++) {
-						Move current = legalMoves.get(i);
-						if (getPiece(current.target) == null) {
-							legalMoves.remove(i);
-							i--;
-						}
-					}
-					// Add the remaining moves to the big list to return
-					moves.addAll(legalMoves);
+		int enemy = side ^ 1;
+		int base = side * 6;
+		long king = pieces[base + KING];
+		int kingSq = Long.numberOfTrailingZeros(king);
+		
+		updateCheckInfo(side);
+		long checkers = checkersStack[undoCount];
+		long pinned = pinnedStack[undoCount];
+		long checkMask = checkMaskStack[undoCount];
+		
+		long allTargets = (captures ? sideOccupancy[enemy] : 0) | (quiets ? ~occupied : 0);
+		long targets = allTargets & checkMask;
+		if (checkMask != 0) {
+			// Pawns push forwards onto empty squares and capture diagonally
+			long bb = pieces[base + PAWN] & sources;
+			int forward = side == SIDE_WHITE ? -8 : 8;
+			int startRow = side == SIDE_WHITE ? 6 : 1;
+			while (bb != 0) {
+				int from = Long.numberOfTrailingZeros(bb);
+				bb &= bb - 1;
+				
+				long attacks = Bitboards.PAWN_ATTACKS[side][from];
+				long pawnTargets = captures ? attacks & sideOccupancy[enemy] : 0;
+				int to = from + forward;
+				if (quiets && to >= 0 && to < 64 && (occupied & (1L << to)) == 0) {
+					pawnTargets |= 1L << to;
+					if ((from >> 3) == startRow && (occupied & (1L << (to + forward))) == 0)
+						pawnTargets |= 1L << (to + forward);
+				}
+				addPawnMoves(base + PAWN, from, pin(from, kingSq, pinned, pawnTargets & checkMask), list);
+				
+				// En passant captures take the pawn standing behind the target square
+				if (captures && enPassantSquare != -1 && (attacks & (1L << enPassantSquare)) != 0
+						&& isLegalEnPassant(side, from, kingSq, checkers, checkMask)) {
+					list.add(Moves.create(from, enPassantSquare, base + PAWN, enemy * 6 + PAWN,
+							Moves.FLAG_EN_PASSANT, 0));
 				}
 			}
+			
+			bb = pieces[base + KNIGHT] & sources & ~pinned;
+			while (bb != 0) {
+				int from = Long.numberOfTrailingZeros(bb);
+				bb &= bb - 1;
+				addMoves(base + KNIGHT, from, Bitboards.KNIGHT_ATTACKS[from] & targets, list);
+			}
+			
+			bb = pieces[base + BISHOP] & sources;
+			while (bb != 0) {
+				int from = Long.numberOfTrailingZeros(bb);
+				bb &= bb - 1;
+				addMoves(base + BISHOP, from, pin(from, kingSq, pinned, Bitboards.bishopAttacks(from, occupied) & targets), list);
+			}
+			
+			bb = pieces[base + ROOK] & sources;
+			while (bb != 0) {
+				int from = Long.numberOfTrailingZeros(bb);
+				bb &= bb - 1;
+				addMoves(base + ROOK, from, pin(from, kingSq, pinned, Bitboards.rookAttacks(from, occupied) & targets), list);
+			}
+			
+			bb = pieces[base + QUEEN] & sources;
+			while (bb != 0) {
+				int from = Long.numberOfTrailingZeros(bb);
+				bb &= bb - 1;
+				addMoves(base + QUEEN, from, pin(from, kingSq, pinned, Bitboards.queenAttacks(from, occupied) & targets), list);
+			}
+		}
+		
+		if ((king & sources) != 0) {
+			// The king may not move onto an attacked square; it is taken off the board first so that
+			// it does not block the attacks along the line it is moving on
+			long kingTargets = Bitboards.KING_ATTACKS[kingSq] & allTargets;
+			long withoutKing = occupied ^ king;
+			while (kingTargets != 0) {
+				int to = Long.numberOfTrailingZeros(kingTargets);
+				kingTargets &= kingTargets - 1;
+				if (!isSquareAttacked(to, enemy, withoutKing))
+					list.add(Moves.create(kingSq, to, base + KING, squares[to], Moves.FLAG_NONE, 0));
+			}
+			
+			if (quiets && checkers == 0)
+				addCastlingMoves(side, kingSq, list);
+		}
+	}
+	
+	/**
+	 * Works out the pieces giving check to a side's king and the pieces pinned to it, unless they
+	 * have already been worked out for this board
+	 * @param side the side to move
+	 */
+	private void updateCheckInfo (int side)
+	{
+		if (checkInfoSide[undoCount] == side)
+			return;
+		
+		// The squares the other pieces have to move to when in check: the checking piece and the
+		// squares between it and the king, or no square at all in double check
+		long king = pieces[side * 6 + KING];
+		int kingSq = Long.numberOfTrailingZeros(king);
+		long checkers = 0;
+		long pinned = 0;
+		long checkMask = ~0L;
+		if (king != 0) {
+			checkers = attackersTo(kingSq, occupied) & sideOccupancy[side ^ 1];
+			pinned = pinnedPieces(side, kingSq);
+			if (checkers != 0) {
+				if (Long.bitCount(checkers) > 1)
+					checkMask = 0;
+				else
+					checkMask = checkers | Bitboards.BETWEEN[kingSq][Long.numberOfTrailingZeros(checkers)];
+			}
 		}
 		
-		return new PriorityQueue<Move> (moves);
+		checkInfoSide[undoCount] = side;
+		checkersStack[undoCount] = checkers;
+		pinnedStack[undoCount] = pinned;
+		checkMaskStack[undoCount] = checkMask;
+	}
+	
+	/**
+	 * Forgets the check information of every undo depth
+	 * @param size the number of undo depths to make room for
+	 */
+	private void clearCheckInfo (int size)
+	{
+		checkInfoSide = new int [size];
+		Arrays.fill(checkInfoSide, -1);
+		checkersStack = new long [size];
+		pinnedStack = new long [size];
+		checkMaskStack = new long [size];
+	}
+	
+	/**
+	 * Gets the pieces of a side that are pinned to its king, which are the pieces that are alone
+	 * between the king and an enemy sliding piece
+	 * @param side the side of the king
+	 * @param kingSq the square of the king
+	 * @return a bitboard of the pinned pieces
+	 */
+	private long pinnedPieces (int side, int kingSq)
+	{
+		int enemyBase = (side ^ 1) * 6;
+		long queens = pieces[enemyBase + QUEEN];
+		
+		// Enemy sliders that would attack the king if nothing was in the way
+		long snipers = (Bitboards.rookAttacks(kingSq, 0) & (queens | pieces[enemyBase + ROOK]))
+				| (Bitboards.bishopAttacks(kingSq, 0) & (queens | pieces[enemyBase + BISHOP]));
+		
+		long pinned = 0;
+		while (snipers != 0) {
+			int sniper = Long.numberOfTrailingZeros(snipers);
+			snipers &= snipers - 1;
+			long blockers = Bitboards.BETWEEN[kingSq][sniper] & occupied;
+			if (blockers != 0 && (blockers & (blockers - 1)) == 0)
+				pinned |= blockers & sideOccupancy[side];
+		}
+		return pinned;
+	}
+	
+	/**
+	 * Limits the targets of a piece to the line through its king if the piece is pinned
+	 * @param from the square of the piece
+	 * @param kingSq the square of the piece's king
+	 * @param pinned the pinned pieces
+	 * @param targets the squares the piece could move to if it was not pinned
+	 * @return the squares the piece can move to
+	 */
+	private static long pin (int from, int kingSq, long pinned, long targets)
+	{
+		if ((pinned & (1L << from)) != 0)
+			return targets & Bitboards.LINE[kingSq][from];
+		return targets;
+	}
+	
+	/**
+	 * Checks whether an en passant capture leaves the king safe. The capture takes two pawns off the
+	 * same row at once, which can uncover a slider's attack that the pinned pieces do not show
+	 * @param side the side making the capture
+	 * @param from the square of the capturing pawn
+	 * @param kingSq the square of the capturing side's king, or 64 if it has no king
+	 * @param checkers the pieces giving check
+	 * @param checkMask the squares the other pieces have to move to when in check
+	 * @return true if the capture is legal, false otherwise
+	 */
+	private boolean isLegalEnPassant (int side, int from, int kingSq, long checkers, long checkMask)
+	{
+		if (kingSq == 64)
+			return true;
+		
+		// In check, the capture has to take the checking pawn or block the check
+		int capturedSq = side == SIDE_WHITE ? enPassantSquare + 8 : enPassantSquare - 8;
+		if (checkers != 0 && (checkers & (1L << capturedSq)) == 0 && (checkMask & (1L << enPassantSquare)) == 0)
+			return false;
+		
+		int enemyBase = (side ^ 1) * 6;
+		long queens = pieces[enemyBase + QUEEN];
+		long after = (occupied ^ (1L << from) ^ (1L << capturedSq)) | (1L << enPassantSquare);
+		return (Bitboards.rookAttacks(kingSq, after) & (queens | pieces[enemyBase + ROOK])) == 0
+				&& (Bitboards.bishopAttacks(kingSq, after) & (queens | pieces[enemyBase + BISHOP])) == 0;
+	}
+	
+	/**
+	 * Adds the castling moves a side can make. The king may not castle out of, through or into check
+	 * @param side the side to add the castling moves of
+	 * @param from the square of the side's king
+	 * @param list the list to add the packed moves to
+	 */
+	private void addCastlingMoves (int side, int from, MoveList list)
+	{
+		int home = side == SIDE_WHITE ? 60 : 4;
+		int kingside = side == SIDE_WHITE ? CASTLE_WHITE_KINGSIDE : CASTLE_BLACK_KINGSIDE;
+		int queenside = side == SIDE_WHITE ? CASTLE_WHITE_QUEENSIDE : CASTLE_BLACK_QUEENSIDE;
+		int enemy = side ^ 1;
+		
+		if (from != home || (castlingRights & (kingside | queenside)) == 0 || isSquareAttacked(home, enemy))
+			return;
+		
+		if ((castlingRights & kingside) != 0 && squares[home + 3] == side * 6 + ROOK
+				&& (occupied & (3L << (home + 1))) == 0
+				&& !isSquareAttacked(home + 1, enemy) && !isSquareAttacked(home + 2, enemy)) {
+			list.add(Moves.create(home, home + 2, side * 6 + KING, EMPTY, Moves.FLAG_CASTLE, 0));
+		}
+		
+		if ((castlingRights & queenside) != 0 && squares[home - 4] == side * 6 + ROOK
+				&& (occupied & (7L << (home - 3))) == 0
+				&& !isSquareAttacked(home - 1, enemy) && !isSquareAttacked(home - 2, enemy)) {
+			list.add(Moves.create(home, home - 2, side * 6 + KING, EMPTY, Moves.FLAG_CASTLE, 0));
+		}
+	}
+	
+	/**
+	 * Adds a move from a square to every square in a set of targets
+	 * @param piece the piece code of the moving piece
+	 * @param from the square to move from
+	 * @param targets the squares to move to
+	 * @param list the list to add the packed moves to
+	 */
+	private void addMoves (int piece, int from, long targets, MoveList list)
+	{
+		while (targets != 0) {
+			int to = Long.numberOfTrailingZeros(targets);
+			targets &= targets - 1;
+			list.add(Moves.create(from, to, piece, squares[to], Moves.FLAG_NONE, 0));
+		}
+	}
+	
+	/**
+	 * Adds a pawn's moves to every square in a set of targets, with one move for every
+	 * piece it can promote to when it reaches the last row
+	 * @param piece the piece code of the pawn
+	 * @param from the square to move from
+	 * @param targets the squares to move to
+	 * @param list the list to add the packed moves to
+	 */
+	private void addPawnMoves (int piece, int from, long targets, MoveList list)
+	{
+		while (targets != 0) {
+			int to = Long.numberOfTrailingZeros(targets);
+			targets &= targets - 1;
+			if (to < 8 || to >= 56) {
+				list.add(Moves.create(from, to, piece, squares[to], Moves.FLAG_PROMOTION, QUEEN));
+				list.add(Moves.create(from, to, piece, squares[to], Moves.FLAG_PROMOTION, KNIGHT));
+				list.add(Moves.create(from, to, piece, squares[to], Moves.FLAG_PROMOTION, ROOK));
+				list.add(Moves.create(from, to, piece, squares[to], Moves.FLAG_PROMOTION, BISHOP));
+			} else {
+				list.add(Moves.create(from, to, piece, squares[to], Moves.FLAG_NONE, 0));
+			}
+		}
+	}
+	
+	/**
+	 * Scores every move in a list with a rough estimate of how good it is, for move ordering.
+	 * Captures gain the difference between the captured and the capturing piece's values, and
+	 * every move gains the change in position score from its source to its target
+	 * @param list the list of moves to score
+	 */
+	public void scoreMoves (MoveList list)
+	{
+		int middleGameWeight = getPhase();
+		for (int i = 0; i < list.size; i++) {
+			int move = list.moves[i];
+			int piece = Moves.getPiece(move);
+			int score = 0;
+			
+			int captured = Moves.getCaptured(move);
+			if (captured != EMPTY)
+				score += PIECE_VALUES[captured % 6] - PIECE_VALUES[piece % 6];
+			
+			score += getPositionChange(piece, Moves.getSource(move), Moves.getTarget(move), middleGameWeight);
+			list.scores[i] = score;
+		}
+	}
+	
+	/**
+	 * Gets how much the position score of the piece on a square changes by moving it to another
+	 * square, blended by the current game phase
+	 * @param source the square of the piece
+	 * @param target the square to move the piece to
+	 * @return the change in the position score from the point of view of the piece's side
+	 */
+	public int getPositionChange (Position source, Position target)
+	{
+		int from = source.row * 8 + source.col;
+		return getPositionChange(squares[from], from, target.row * 8 + target.col, getPhase());
+	}
+	
+	/**
+	 * Gets how much the position score of a piece changes by moving it between two squares
+	 * @param piece the piece code of the piece
+	 * @param from the square to move from
+	 * @param to the square to move to
+	 * @param phase the game phase (see getPhase)
+	 * @return the change in the position score from the point of view of the piece's side
+	 */
+	private static int getPositionChange (int piece, int from, int to, int phase)
+	{
+		// The tables are from white's point of view
+		int change = taper(MIDDLE_GAME_SCORES[piece * 64 + to] - MIDDLE_GAME_SCORES[piece * 64 + from],
+				ENDGAME_SCORES[piece * 64 + to] - ENDGAME_SCORES[piece * 64 + from], phase);
+		return piece < 6 ? change : -change;
+	}
+	
+	/**
+	 * Scores every capture in a list by the material it wins once the exchange on its target square
+	 * is played out (see), then by the value of the captured piece, for move ordering. A capture
+	 * scores below 0 exactly when it loses material, where losing no more than SEE_EVEN_MARGIN
+	 * counts as an even trade
+	 * @param list the list of captures to score
+	 */
+	public void scoreCaptures (MoveList list)
+	{
+		for (int i = 0; i < list.size; i++) {
+			int move = list.moves[i];
+			int gain = see(move);
+			if (gain < 0 && gain >= -SEE_EVEN_MARGIN)
+				gain = 0;
+			list.scores[i] = gain * 1024 + PIECE_VALUES[Moves.getCaptured(move) % 6];
+		}
+	}
+	
+	/**
+	 * Works out the material a move wins or loses by static exchange evaluation: both sides keep
+	 * recapturing on the target square with their least valuable attacker, sliding pieces behind
+	 * the capturing pieces joining in as the line opens, and either side may stop capturing when
+	 * going on would lose it material. Pins are not taken into account
+	 * @param move the packed move
+	 * @return the material won by the move's side, negative if it loses material
+	 */
+	public int see (int move)
+	{
+		if (Moves.getFlag(move) == Moves.FLAG_CASTLE)
+			return 0;
+		
+		int from = Moves.getSource(move);
+		int to = Moves.getTarget(move);
+		int piece = Moves.getPiece(move);
+		int captured = Moves.getCaptured(move);
+		int[] gains = exchangeGains;
+		
+		gains[0] = captured == EMPTY ? 0 : PIECE_VALUES[captured % 6];
+		int onSquare = PIECE_VALUES[piece % 6];
+		long occ = occupied ^ (1L << from);
+		
+		if (Moves.getFlag(move) == Moves.FLAG_PROMOTION) {
+			onSquare = PIECE_VALUES[Moves.getPromotion(move)];
+			gains[0] += onSquare - PIECE_VALUES[PAWN];
+		} else if (Moves.getFlag(move) == Moves.FLAG_EN_PASSANT) {
+			occ ^= 1L << (piece < 6 ? to + 8 : to - 8);
+		}
+		
+		long queens = pieces[SIDE_WHITE * 6 + QUEEN] | pieces[SIDE_BLACK * 6 + QUEEN];
+		long diagonal = queens | pieces[SIDE_WHITE * 6 + BISHOP] | pieces[SIDE_BLACK * 6 + BISHOP];
+		long straight = queens | pieces[SIDE_WHITE * 6 + ROOK] | pieces[SIDE_BLACK * 6 + ROOK];
+		long attackers = attackersTo(to, occ) & occ;
+		int side = (piece / 6) ^ 1;
+		int depth = 0;
+		
+		while (true) {
+			long sideAttackers = attackers & sideOccupancy[side];
+			if (sideAttackers == 0)
+				break;
+			
+			// Recapture with the least valuable attacker
+			int id = PAWN;
+			long bb = 0;
+			for (int i = 0; i < EXCHANGE_ORDER.length; i++) {
+				id = EXCHANGE_ORDER[i];
+				bb = sideAttackers & pieces[side * 6 + id];
+				if (bb != 0)
+					break;
+			}
+			
+			// The king cannot take a piece that is still defended
+			if (id == KING && (attackers & sideOccupancy[side ^ 1]) != 0)
+				break;
+			
+			depth++;
+			gains[depth] = onSquare - gains[depth - 1];
+			onSquare = PIECE_VALUES[id];
+			occ ^= bb & -bb;
+			
+			// Sliding pieces lined up behind the capturing piece can now reach the square
+			if (id == PAWN || id == BISHOP || id == QUEEN)
+				attackers |= Bitboards.bishopAttacks(to, occ) & diagonal;
+			if (id == ROOK || id == QUEEN)
+				attackers |= Bitboards.rookAttacks(to, occ) & straight;
+			attackers &= occ;
+			side ^= 1;
+		}
+		
+		// Work backwards, letting each side stop capturing if that is better for it
+		while (depth > 0) {
+			gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+			depth--;
+		}
+		return gains[0];
+	}
+	
+	/**
+	 * Gets every piece of either side attacking a given square
+	 * @param sq the square to find the attackers of
+	 * @param occupiedSquares the occupied squares, which block sliding pieces
+	 * @return a bitboard of the attacking pieces
+	 */
+	private long attackersTo (int sq, long occupiedSquares)
+	{
+		long queens = pieces[SIDE_WHITE * 6 + QUEEN] | pieces[SIDE_BLACK * 6 + QUEEN];
+		long diagonal = queens | pieces[SIDE_WHITE * 6 + BISHOP] | pieces[SIDE_BLACK * 6 + BISHOP];
+		long straight = queens | pieces[SIDE_WHITE * 6 + ROOK] | pieces[SIDE_BLACK * 6 + ROOK];
+		
+		return (Bitboards.PAWN_ATTACKS[SIDE_BLACK][sq] & pieces[SIDE_WHITE * 6 + PAWN])
+				| (Bitboards.PAWN_ATTACKS[SIDE_WHITE][sq] & pieces[SIDE_BLACK * 6 + PAWN])
+				| (Bitboards.KNIGHT_ATTACKS[sq] & (pieces[SIDE_WHITE * 6 + KNIGHT] | pieces[SIDE_BLACK * 6 + KNIGHT]))
+				| (Bitboards.KING_ATTACKS[sq] & (pieces[SIDE_WHITE * 6 + KING] | pieces[SIDE_BLACK * 6 + KING]))
+				| (Bitboards.bishopAttacks(sq, occupiedSquares) & diagonal)
+				| (Bitboards.rookAttacks(sq, occupiedSquares) & straight);
+	}
+	
+	/**
+	 * Checks whether a square is attacked by any piece of a given side
+	 * @param sq the square to check
+	 * @param side the attacking side
+	 * @return true if the square is attacked, false otherwise
+	 */
+	public boolean isSquareAttacked (int sq, int side)
+	{
+		return isSquareAttacked(sq, side, occupied);
+	}
+	
+	/**
+	 * Checks whether a square is attacked by any piece of a given side, looking outwards from the
+	 * square for each kind of attacker in turn and stopping at the first one found
+	 * @param sq the square to check
+	 * @param side the attacking side
+	 * @param occupiedSquares the occupied squares, which block sliding pieces
+	 * @return true if the square is attacked, false otherwise
+	 */
+	private boolean isSquareAttacked (int sq, int side, long occupiedSquares)
+	{
+		int base = side * 6;
+		
+		// A pawn of the attacking side attacks the square if a pawn of the other side on the square
+		// would attack the pawn
+		if ((Bitboards.PAWN_ATTACKS[side ^ 1][sq] & pieces[base + PAWN]) != 0)
+			return true;
+		if ((Bitboards.KNIGHT_ATTACKS[sq] & pieces[base + KNIGHT]) != 0)
+			return true;
+		if ((Bitboards.KING_ATTACKS[sq] & pieces[base + KING]) != 0)
+			return true;
+		
+		// Only look along the lines if there is a sliding piece that could be on them
+		long queens = pieces[base + QUEEN];
+		long diagonal = queens | pieces[base + BISHOP];
+		if (diagonal != 0 && (Bitboards.bishopAttacks(sq, occupiedSquares) & diagonal) != 0)
+			return true;
+		long straight = queens | pieces[base + ROOK];
+		return straight != 0 && (Bitboards.rookAttacks(sq, occupiedSquares) & straight) != 0;
+	}
+	
+	/**
+	 * Checks whether a side has any pieces other than pawns and its king. Without them, a side is
+	 * often forced to weaken its position just because it has to move (zugzwang)
+	 * @param side the side to check
+	 * @return true if the side has a knight, bishop, rook or queen, false otherwise
+	 */
+	public boolean hasNonPawnMaterial (int side)
+	{
+		return (sideOccupancy[side] & ~pieces[side * 6 + PAWN] & ~pieces[side * 6 + KING]) != 0;
+	}
+	
+	/**
+	 * Checks whether a side's king is in check
+	 * @param side the side to check
+	 * @return true if the side's king is attacked, false otherwise (including when it has no king)
+	 */
+	public boolean isInCheck (int side)
+	{
+		long king = pieces[side * 6 + KING];
+		return king != 0 && isSquareAttacked(Long.numberOfTrailingZeros(king), side ^ 1);
 	}
 	
 	/**
@@ -524,64 +1204,27 @@ public class Board
 	 */
 	public Color checkForWins (Color currentPlayerColor)
 	{
-		Color otherPlayerColor = (currentPlayerColor == Color.BLACK ? Color.WHITE : Color.BLACK);
-		King king;
+		int otherSide = sideOf(currentPlayerColor) ^ 1;
 		
-		// Check to see if the player that just moved has just checkmated his opponent
-		if (otherPlayerColor == Color.WHITE) {
-			king = (King) getPiece(whiteKing);
-			if (king.isInCheck(this, whiteKing) && isCheckmated (otherPlayerColor, whiteKing))
-				return currentPlayerColor;
-		} else {
-			king = (King) getPiece(blackKing);
-			if (king.isInCheck(this, blackKing) && isCheckmated (otherPlayerColor, blackKing))
-				return currentPlayerColor;
-		}
-		
-		// Check if the player that just moved has created a stalemate, leaving his opponent with no
-		// legal moves
-		PriorityQueue<Move> moves = this.getAllPossibleMovesBySide(otherPlayerColor);
-		if (moves.size() == 0)
-			return Game.STATE_STALEMATE;
-		// Check if the moves that the opponent can supposedly make are actually legal, i.e. if the opponent
-		// is in check after making the move
-		for (Move move : moves) {
-			Board testBoard = new Board(this);
-			testBoard.makeMove(move);
-			Position kingPos;
-			if (otherPlayerColor == Color.WHITE)
-				kingPos = testBoard.getWhiteKingPos();
-			else
-				kingPos = testBoard.getBlackKingPos();
-			king = (King) testBoard.getPiece(kingPos);
-			// If a legal move is found, return null for no stalemate or checkmate
-			if (!king.isInCheck(testBoard, kingPos))
-				return null;
-		}
-		
-		// Return stalemate if no legal moves could be found
-		return Game.STATE_STALEMATE;
+		// If the opponent of the player that just moved has a legal move, the game goes on
+		if (hasLegalMove(otherSide))
+			return null;
+		
+		// Otherwise the player that just moved has checkmated his opponent if the opponent is in check,
+		// and has created a stalemate if not
+		return isInCheck(otherSide) ? currentPlayerColor : Game.STATE_STALEMATE;
 	}
-
+	
 	/**
-	 * Checks to see if a side has been checkmated
-	 * @param side the side or colour to check
-	 * @param king the position of the side's king
-	 * @return true if the side has been checkmated, false otherwise
-	 */
-	private boolean isCheckmated (Color side, Position king)
-	{
-		// Look at all possible moves by this side
-		Collection<Move> moves = this.getAllPossibleMovesBySide(side);
-		for (Move move : moves) {
-			Board newBoard = new Board(this);
-			newBoard.makeMove(move);
-			// If any of this side's possible moves results in it no longer being in check,
-			// return false for no checkmate
-			if (!((King) newBoard.getPiece(side == Color.BLACK ? newBoard.blackKing : newBoard.whiteKing)).isInCheck(newBoard, (side == Color.BLACK ? newBoard.blackKing : newBoard.whiteKing)))
-				return false;
-		}
-		return true;
+	 * Checks whether a side has any move that does not leave its king in check
+	 * @param side the side to check
+	 * @return true if the side has a legal move, false otherwise
+	 */
+	private boolean hasLegalMove (int side)
+	{
+		MoveList list = new MoveList();
+		generateMoves(side, list);
+		return list.size != 0;
 	}
 	
 	/**
@@ -592,75 +1235,110 @@ public class Board
 	 */
 	public int getScore (Color cpuColor)
 	{
-		// If the side to calculate the colour for has no king, return a very low score
-		if (cpuColor == Color.WHITE) {
-			if (board[whiteKing.row][whiteKing.col] == null)
-				return Integer.MIN_VALUE + 1;
+		return getScore(sideOf(cpuColor));
+	}
+	
+	/**
+	 * Calculates the score of this board for a given side
+	 * @param cpuSide the side to calculate the score for
+	 * @return a greater value if this board favours the given side more, and
+	 * 			a lesser value if this board does not favour the given side as much (relative to other boards)
+	 */
+	public int getScore (int cpuSide)
+	{
+		return getScore(cpuSide, null);
+	}
+	
+	/**
+	 * Calculates the score of this board for a given side, looking up the pawn structure scores in a
+	 * pawn hash table
+	 * @param cpuSide the side to calculate the score for
+	 * @param pawnTable the pawn hash table to look up and store pawn structure scores in, or null to
+	 * 			always work them out
+	 * @return a greater value if this board favours the given side more, and
+	 * 			a lesser value if this board does not favour the given side as much (relative to other boards)
+	 */
+	public int getScore (int cpuSide, PawnHashTable pawnTable)
+	{
+		// If the side to calculate the colour for has no king, it has lost
+		if (pieces[cpuSide * 6 + KING] == 0)
+			return -SCORE_MATE;
+		
+		// The material and position scores are kept up to date as moves are made
+		int middleGame = middleGameScore;
+		int endgame = endgameScore;
+		
+		// Add the pawn structure scores, which only change when pawns move
+		long passed;
+		if (pawnTable == null) {
+			evaluatePawnStructure();
+			middleGame += pawnMiddleGameScore;
+			endgame += pawnEndgameScore;
+			passed = passedPawns;
 		} else {
-			if (board[blackKing.row][blackKing.col] == null)
-				return Integer.MIN_VALUE + 1;
-		}
-		
-		int score = 0;
-		
-		// Look at every board position
-		for (int r = 0; r < board.length; r++) {
-			for (int c = 0; c < board[r].length; c++) {
-				if (board[r][c] != null) {
-					// If this piece has the same colour as the given side, add this piece's material and position
-					// score to the total
-					if (board[r][c].getColor() == cpuColor) {
-						score += board[r][c].getPieceValue();
-						
-						if (cpuColor == Color.WHITE) {
-							score += whitePiecePositionScores[getTableVersion()][board[r][c].getPieceID()][r][c];
-						} else {
-							score += whitePiecePositionScores[getTableVersion()][board[r][c].getPieceID()][7-r][c];
-						}
-					} else {
-						// If this piece belongs to the opponent, subtract this piece's material and position
-						// score from the total
-						score -= board[r][c].getPieceValue();
-
-						if (cpuColor == Color.BLACK) {
-							score -= whitePiecePositionScores[getTableVersion()][board[r][c].getPieceID()][r][c];
-						} else {
-							score -= whitePiecePositionScores[getTableVersion()][board[r][c].getPieceID()][7-r][c];
-						}
-					}
-				}
+			int index = pawnTable.probe(pawnKey);
+			if (index < 0) {
+				evaluatePawnStructure();
+				index = pawnTable.store(pawnKey, pawnMiddleGameScore, pawnEndgameScore, passedPawns);
 			}
+			middleGame += pawnTable.getMiddleGameScore(index);
+			endgame += pawnTable.getEndgameScore(index);
+			passed = pawnTable.getPassedPawns(index);
 		}
 		
+		// Passed pawns are worth more with nothing in their way
+		long free = passed & pieces[SIDE_WHITE * 6 + PAWN] & ~(occupied << 8);
+		while (free != 0) {
+			int sq = Long.numberOfTrailingZeros(free);
+			free &= free - 1;
+			endgame += FREE_PASSED_PAWN[7 - (sq >> 3)];
+		}
+		free = passed & pieces[SIDE_BLACK * 6 + PAWN] & ~(occupied >>> 8);
+		while (free != 0) {
+			int sq = Long.numberOfTrailingZeros(free);
+			free &= free - 1;
+			endgame -= FREE_PASSED_PAWN[sq >> 3];
+		}
+		
+		// Kings are safer behind their own pawns
+		long whiteKing = pieces[SIDE_WHITE * 6 + KING];
+		long blackKing = pieces[SIDE_BLACK * 6 + KING];
+		if (whiteKing != 0)
+			middleGame += PAWN_SHIELD * Long.bitCount(Bitboards.PAWN_SHIELDS[SIDE_WHITE][Long.numberOfTrailingZeros(whiteKing)]
+					& pieces[SIDE_WHITE * 6 + PAWN]);
+		if (blackKing != 0)
+			middleGame -= PAWN_SHIELD * Long.bitCount(Bitboards.PAWN_SHIELDS[SIDE_BLACK][Long.numberOfTrailingZeros(blackKing)]
+					& pieces[SIDE_BLACK * 6 + PAWN]);
+		
+		// The material and position scores are kept up to date as moves are made
+		int score = material[SIDE_WHITE] - material[SIDE_BLACK] + taper(middleGame, endgame, getPhase());
+		if (cpuSide == SIDE_BLACK)
+			score = -score;
+		
 		// If there aren't very many pieces left, factor in each piece's Manhattan distance to the opponent's king
 		// so that checkmates can become more likely
+		int pieceCount = getPiecesCount();
 		if (pieceCount <= 16) {
 			// Increase the weight as there become less pieces remaining
 			int distWeight = (16-pieceCount)*10;
 			int distScore = 0;
-			for (int r = 0; r < board.length; r++) {
-				for (int c = 0; c < board[r].length; c++) {
-					if (board[r][c] != null) {
-						if (board[r][c].getColor() == cpuColor) {
-							// If this is the given side's piece, subtract its distance to the opponent's king
-							// from the total score
-							if (cpuColor == Color.WHITE) {
-								distScore -= Math.abs(r - blackKing.row) + Math.abs(c - blackKing.col);
-							} else {
-								distScore -= Math.abs(r - whiteKing.row) + Math.abs(c - whiteKing.col);
-							}
-						} else {
-							// If this is the other side's piece, add its distance to the given side's king
-							// to the total score
-							if (cpuColor == Color.WHITE) {
-								distScore += Math.abs(r - whiteKing.row) + Math.abs(c - whiteKing.col);
-							} else {
-								distScore += Math.abs(r - blackKing.row) + Math.abs(c - blackKing.col);
-							}
-						}
-					}
-				}
-				
+			int ownKing = Long.numberOfTrailingZeros(pieces[cpuSide * 6 + KING]);
+			int enemyKing = Long.numberOfTrailingZeros(pieces[(cpuSide ^ 1) * 6 + KING]);
+			
+			// Subtract the distance of each of the given side's pieces to the opponent's king
+			long bb = sideOccupancy[cpuSide];
+			while (bb != 0) {
+				int sq = Long.numberOfTrailingZeros(bb);
+				bb &= bb - 1;
+				distScore -= distance(sq, enemyKing);
+			}
+			
+			// Add the distance of each of the opponent's pieces to the given side's king
+			bb = sideOccupancy[cpuSide ^ 1];
+			while (bb != 0) {
+				int sq = Long.numberOfTrailingZeros(bb);
+				bb &= bb - 1;
+				distScore += distance(sq, ownKing);
 			}
 			score += distScore * distWeight;
 		}
@@ -669,56 +1347,311 @@ public class Board
 	}
 	
 	/**
-	 * Makes a move on this board
+	 * Gets the Manhattan distance between two squares
+	 * @param a the first square
+	 * @param b the second square
+	 * @return the number of rows plus the number of columns between the squares
+	 */
+	private static int distance (int a, int b)
+	{
+		return Math.abs((a >> 3) - (b >> 3)) + Math.abs((a & 7) - (b & 7));
+	}
+	
+	/**
+	 * Makes a move on this board. The move can be taken back with unmakeMove
 	 * @param move the given move to make
 	 */
 	public void makeMove (Move move)
 	{
-		Piece src = getPiece(move.source);
-
-		// Update the move counter for the piece to be moved
-		if (!piecesMovedCount.containsKey(src))
-			piecesMovedCount.put(src, 1);
-		else
-			piecesMovedCount.put(src, piecesMovedCount.get(src) + 1);
-		
-		// Update king position trackers if the piece to move is a king
-		if (src instanceof King) {
-			if (src.getColor() == Color.WHITE)
-				whiteKing = move.target;
-			else
-				blackKing = move.target;
-		} else if (src instanceof Pawn) {
-			// Promote the piece if it's a pawn and has advanced to the last row
-			if (move.target.row == 0 || move.target.row == 7)
-				board[move.source.row][move.source.col] = Game.currentGame.getPlayer(src.getColor()).getUpgradePiece();
+		makeMove(encodeMove(move));
+	}
+	
+	/**
+	 * Makes a packed move on this board. The move can be taken back with unmakeMove
+	 * @param move the packed move to make
+	 */
+	public void makeMove (int move)
+	{
+		int from = Moves.getSource(move);
+		int to = Moves.getTarget(move);
+		int piece = Moves.getPiece(move);
+		int captured = Moves.getCaptured(move);
+		int flag = Moves.getFlag(move);
+		int side = piece / 6;
+		
+		// Record what is needed to take the move back
+		pushUndo(move);
+		
+		// Take the old castling rights and en passant column out of the key; moving the pieces
+		// updates the key for them as it goes
+		key ^= Zobrist.CASTLING[castlingRights] ^ enPassantKey();
+		
+		// Captures and pawn moves reset the counter of passive moves
+		consecutiveUselessMovesCount++;
+		if (captured != EMPTY) {
+			// The pawn captured en passant is behind the target square
+			removePiece(flag == Moves.FLAG_EN_PASSANT ? (side == SIDE_WHITE ? to + 8 : to - 8) : to);
 			consecutiveUselessMovesCount = 0;
 		}
 		
-		// Decrement piece counters if the move is a capture
-		if (board[move.target.row][move.target.col] != null) {
-			consecutiveUselessMovesCount = 0;
-			decrementPieceCount(board[move.target.row][move.target.col].getColor());
-		} else {
-			consecutiveUselessMovesCount++;
+		removePiece(from);
+		putPiece(flag == Moves.FLAG_PROMOTION ? side * 6 + Moves.getPromotion(move) : piece, to);
+		
+		if (flag == Moves.FLAG_CASTLE) {
+			// Move the rook as well
+			int rookFrom = to > from ? from + 3 : from - 4;
+			int rookTo = to > from ? from + 1 : from - 1;
+			removePiece(rookFrom);
+			putPiece(side * 6 + ROOK, rookTo);
 		}
 		
-		// Move the piece to move in the array
-		board[move.target.row][move.target.col] = board[move.source.row][move.source.col];
-		board[move.source.row][move.source.col] = null;
+		// Moving a king or rook, or capturing a rook, loses the matching castling rights
+		castlingRights &= CASTLING_MASKS[from] & CASTLING_MASKS[to];
 		
-		// If this is a special move (en passant or castle), perform additional necessary movements
-		if (move.extra != null) {
-			if (move.extra.target != null) {
-				// Move the rook in a castle
-				board[move.extra.target.row][move.extra.target.col] = board[move.extra.source.row][move.extra.source.col];
-			} else {
-				// Decrement piece counters for the en passant capture
-				decrementPieceCount(board[move.extra.source.row][move.extra.source.col].getColor());
-			}
-			board[move.extra.source.row][move.extra.source.col] = null;
+		// A pawn moving two squares may be captured en passant on the next move
+		enPassantSquare = -1;
+		if (piece % 6 == PAWN) {
 			consecutiveUselessMovesCount = 0;
+			if (Math.abs(to - from) == 16)
+				enPassantSquare = (from + to) / 2;
+		}
+		
+		// It is now the other side's turn
+		if (sideToMove == side)
+			key ^= Zobrist.SIDE;
+		sideToMove = side ^ 1;
+		key ^= Zobrist.CASTLING[castlingRights] ^ enPassantKey();
+	}
+	
+	/**
+	 * Records what is needed to take back a move about to be made, along with the key of the board
+	 * before it. The board the move leads to has not had its check information worked out yet
+	 * @param move the packed move, or Moves.NO_MOVE for a null move
+	 */
+	private void pushUndo (int move)
+	{
+		if (undoCount == undoStack.length) {
+			undoStack = Arrays.copyOf(undoStack, undoCount * 2);
+			keyStack = Arrays.copyOf(keyStack, undoCount * 2);
+			checkInfoSide = Arrays.copyOf(checkInfoSide, undoCount * 2 + 1);
+			checkersStack = Arrays.copyOf(checkersStack, undoCount * 2 + 1);
+			pinnedStack = Arrays.copyOf(pinnedStack, undoCount * 2 + 1);
+			checkMaskStack = Arrays.copyOf(checkMaskStack, undoCount * 2 + 1);
+		}
+		keyStack[undoCount] = key;
+		undoStack[undoCount++] = move | ((long) castlingRights << 25) | ((long) (enPassantSquare + 1) << 29)
+				| ((long) consecutiveUselessMovesCount << 36) | ((long) sideToMove << 52);
+		checkInfoSide[undoCount] = -1;
+	}
+	
+	/**
+	 * Passes the turn to the other side without moving anything, for null move pruning in the
+	 * search. The board is the same apart from the side to move and the en passant square, which
+	 * is lost. Must be taken back with unmakeNullMove
+	 */
+	public void makeNullMove ()
+	{
+		pushUndo(Moves.NO_MOVE);
+		
+		key ^= enPassantKey() ^ Zobrist.SIDE;
+		enPassantSquare = -1;
+		consecutiveUselessMovesCount++;
+		sideToMove ^= 1;
+	}
+	
+	/**
+	 * Takes back a null move made by makeNullMove
+	 */
+	public void unmakeNullMove ()
+	{
+		long undo = undoStack[--undoCount];
+		enPassantSquare = (int) ((undo >>> 29) & 127) - 1;
+		consecutiveUselessMovesCount = (int) (undo >>> 36) & 0xFFFF;
+		sideToMove = (int) (undo >>> 52) & 1;
+		key ^= enPassantKey() ^ Zobrist.SIDE;
+	}
+	
+	/**
+	 * Checks whether this board has come up before with the same side to move. Only the boards since
+	 * the last capture or pawn move can be the same, so no more moves than the passive moves count
+	 * are looked back through, and the search stops at a null move, across which boards are not
+	 * really repeated
+	 * @return true if the board is a repetition of an earlier one, false otherwise
+	 */
+	public boolean isRepetition ()
+	{
+		int first = Math.max(0, undoCount - consecutiveUselessMovesCount);
+		for (int i = undoCount - 1; i >= first; i--) {
+			if ((undoStack[i] & 0x1FFFFFF) == Moves.NO_MOVE)
+				return false;
+			
+			// The same side is to move an even number of moves back
+			if (((undoCount - i) & 1) == 0 && keyStack[i] == key)
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Gets the last move made on this board that can still be taken back
+	 * @return the packed move, or Moves.NO_MOVE if no moves have been made or the last move was a
+	 * 			null move
+	 */
+	public int getLastMove ()
+	{
+		if (undoCount == 0)
+			return Moves.NO_MOVE;
+		return (int) (undoStack[undoCount - 1] & 0x1FFFFFF);
+	}
+	
+	/**
+	 * Takes back the last move made on this board, restoring the board to exactly how it was
+	 * before the move
+	 */
+	public void unmakeMove ()
+	{
+		long undo = undoStack[--undoCount];
+		int move = (int) (undo & 0x1FFFFFF);
+		int from = Moves.getSource(move);
+		int to = Moves.getTarget(move);
+		int piece = Moves.getPiece(move);
+		int captured = Moves.getCaptured(move);
+		int flag = Moves.getFlag(move);
+		int side = piece / 6;
+		
+		// Restore the state the move overwrote, along with its part of the key
+		key ^= Zobrist.CASTLING[castlingRights] ^ enPassantKey();
+		castlingRights = (int) (undo >>> 25) & 15;
+		enPassantSquare = (int) ((undo >>> 29) & 127) - 1;
+		consecutiveUselessMovesCount = (int) (undo >>> 36) & 0xFFFF;
+		int oldSideToMove = (int) (undo >>> 52) & 1;
+		if (oldSideToMove != sideToMove)
+			key ^= Zobrist.SIDE;
+		sideToMove = oldSideToMove;
+		
+		// Move the piece back, which also turns a promoted piece back into a pawn
+		removePiece(to);
+		putPiece(piece, from);
+		if (captured != EMPTY)
+			putPiece(captured, flag == Moves.FLAG_EN_PASSANT ? (side == SIDE_WHITE ? to + 8 : to - 8) : to);
+		
+		if (flag == Moves.FLAG_CASTLE) {
+			// Move the rook back
+			int rookFrom = to > from ? from + 3 : from - 4;
+			int rookTo = to > from ? from + 1 : from - 1;
+			removePiece(rookTo);
+			putPiece(side * 6 + ROOK, rookFrom);
 		}
+		key ^= Zobrist.CASTLING[castlingRights] ^ enPassantKey();
+	}
+	
+	/**
+	 * Gets the part of the key for the en passant square. The column is only part of the key when
+	 * the side to move has a pawn that can actually make the capture, so that positions that only
+	 * differ by an en passant capture nobody can make still get the same key
+	 * @return the number for the en passant column, or 0 if there is no en passant capture
+	 */
+	private long enPassantKey ()
+	{
+		if (enPassantSquare == -1
+				|| (Bitboards.PAWN_ATTACKS[sideToMove ^ 1][enPassantSquare] & pieces[sideToMove * 6 + PAWN]) == 0)
+			return 0;
+		return Zobrist.EN_PASSANT[enPassantSquare & 7];
+	}
+	
+	/**
+	 * Calculates the Zobrist hash key of this board from scratch
+	 * @return the key of the board
+	 */
+	private long computeKey ()
+	{
+		long k = 0;
+		for (int sq = 0; sq < 64; sq++) {
+			if (squares[sq] != EMPTY)
+				k ^= Zobrist.PIECES[squares[sq]][sq];
+		}
+		k ^= Zobrist.CASTLING[castlingRights] ^ enPassantKey();
+		if (sideToMove == SIDE_BLACK)
+			k ^= Zobrist.SIDE;
+		return k;
+	}
+	
+	/**
+	 * Gets the ID of the type of piece a pawn of a given side is promoted to
+	 * @param side the side of the pawn
+	 * @return the piece ID of the upgrade piece chosen by the player, or a queen if there is no game
+	 */
+	private int getPromotionPieceID (int side)
+	{
+		if (Game.currentGame == null)
+			return QUEEN;
+		return Game.currentGame.getPlayer(side == SIDE_WHITE ? Color.WHITE : Color.BLACK).getUpgradePiece().getPieceID();
+	}
+	
+	/**
+	 * Places a piece on an empty square
+	 * @param piece the piece code of the piece
+	 * @param sq the square to place the piece on
+	 */
+	private void putPiece (int piece, int sq)
+	{
+		long b = 1L << sq;
+		pieces[piece] |= b;
+		sideOccupancy[piece / 6] |= b;
+		occupied |= b;
+		squares[sq] = piece;
+		key ^= Zobrist.PIECES[piece][sq];
+		
+		int index = piece * 64 + sq;
+		material[piece / 6] += PIECE_VALUES[piece % 6];
+		middleGameScore += MIDDLE_GAME_SCORES[index];
+		endgameScore += ENDGAME_SCORES[index];
+		phase += PHASE_WEIGHTS[piece % 6];
+		if (piece % 6 == PAWN)
+			pawnKey ^= Zobrist.PIECES[piece][sq];
+	}
+	
+	/**
+	 * Removes the piece on an occupied square
+	 * @param sq the square to clear
+	 */
+	private void removePiece (int sq)
+	{
+		int piece = squares[sq];
+		long b = 1L << sq;
+		pieces[piece] ^= b;
+		sideOccupancy[piece / 6] ^= b;
+		occupied ^= b;
+		squares[sq] = EMPTY;
+		key ^= Zobrist.PIECES[piece][sq];
+		
+		int index = piece * 64 + sq;
+		material[piece / 6] -= PIECE_VALUES[piece % 6];
+		middleGameScore -= MIDDLE_GAME_SCORES[index];
+		endgameScore -= ENDGAME_SCORES[index];
+		phase -= PHASE_WEIGHTS[piece % 6];
+		if (piece % 6 == PAWN)
+			pawnKey ^= Zobrist.PIECES[piece][sq];
+	}
+	
+	/**
+	 * Converts a square index to a Position
+	 * @param sq the square index
+	 * @return a new Position for the square
+	 */
+	private static Position toPosition (int sq)
+	{
+		return new Position (sq >> 3, sq & 7);
+	}
+	
+	/**
+	 * Converts a colour to the matching side constant
+	 * @param color the colour to convert
+	 * @return SIDE_WHITE for white, SIDE_BLACK otherwise
+	 */
+	public static int sideOf (Color color)
+	{
+		return color == Color.WHITE ? SIDE_WHITE : SIDE_BLACK;
 	}
 	
 	/**
@@ -727,7 +1660,7 @@ public class Board
 	 */
 	public Position getWhiteKingPos ()
 	{
-		return whiteKing;
+		return toPosition(Long.numberOfTrailingZeros(pieces[SIDE_WHITE * 6 + KING]));
 	}
 	
 	/**
@@ -736,39 +1669,87 @@ public class Board
 	 */
 	public Position getBlackKingPos ()
 	{
-		return blackKing;
+		return toPosition(Long.numberOfTrailingZeros(pieces[SIDE_BLACK * 6 + KING]));
+	}
+	
+	/**
+	 * Gets how many times the piece at a given location has moved, as recorded in saved games.
+	 * Only kings and rooks keep track of this, through the castling rights
+	 * @param r the row of the location
+	 * @param c the column of the location
+	 * @return 0 if the piece is a king or rook that can still castle, or if it is any other piece,
+	 * 			1 otherwise
+	 */
+	public int getTimesMoved (int r, int c)
+	{
+		int sq = r * 8 + c;
+		int id = squares[sq] == EMPTY ? EMPTY : squares[sq] % 6;
+		if (id != KING && id != ROOK)
+			return 0;
+		return (castlingRights & ~CASTLING_MASKS[sq]) != 0 ? 0 : 1;
+	}
+	
+	/**
+	 * Gets the side whose turn it is to move
+	 * @return SIDE_WHITE or SIDE_BLACK
+	 */
+	public int getSideToMove ()
+	{
+		return sideToMove;
+	}
+	
+	/**
+	 * Sets the side whose turn it is to move, for boards loaded in the middle of a game
+	 * @param side SIDE_WHITE or SIDE_BLACK
+	 */
+	public void setSideToMove (int side)
+	{
+		sideToMove = side;
+		key = computeKey();
 	}
 	
 	/**
-	 * Gets the map of each piece to the number of times it moved
-	 * @return the map of each piece to the number of times it moved
+	 * Gets the Zobrist hash key of this board, which covers the pieces, the side to move, the
+	 * castling rights and the en passant column
+	 * @return the key of the board
 	 */
-	public HashMap<Piece, Integer> getPiecesMovedCount ()
+	public long getKey ()
 	{
-		return piecesMovedCount;
+		return key;
+	}
+	
+	/**
+	 * Gets the Zobrist hash key of only the pawns on this board
+	 * @return the pawn key of the board
+	 */
+	public long getPawnKey ()
+	{
+		return pawnKey;
 	}
 	
 	/**
 	 * Compares whether this board is equal to another object
 	 * @param otherObject the other object
-	 * @return true if the other object is a board and has identical piece positionings as this one,
-	 * 			false otherwise
+	 * @return true if the other object is a board with the same hash key as this one (the same pieces
+	 * 			in the same places, side to move, castling rights and en passant column), false otherwise
 	 */
 	public boolean equals (Object otherObject)
 	{
 		if (!(otherObject instanceof Board))
 			return false;
 		
-		Board other = (Board) otherObject;
-		for (int row = 0; row < 8; row++) {
-			for (int col = 0; col < 8; col++) {
-				if (this.board[row][col] != other.board[row][col])
-					return false;
-			}
-		}
-		
-		return true;
+		return key == ((Board) otherObject).key;
 	}
+	
+	/**
+	 * Gets a hash code for this board that is consistent with equals
+	 * @return the hash code of the board
+	 */
+	public int hashCode ()
+	{
+		return (int) (key ^ (key >>> 32));
+	}
+	
 	/**
 	 * Gets the number of consecutive non-capture or pawn-related moves from the last move made
 	 * @return the number of consecutive non-capture or pawn-related moves from the last move made
@@ -784,7 +1765,7 @@ public class Board
 	 */
 	public int getPiecesCount ()
 	{
-		return pieceCount;
+		return Long.bitCount(occupied);
 	}
 	
 	/**
@@ -794,47 +1775,98 @@ public class Board
 	 */
 	public int getPiecesCount (Color side)
 	{
-		return side == Color.WHITE ? whitePieceCount : blackPieceCount;
+		return Long.bitCount(sideOccupancy[sideOf(side)]);
 	}
 	
 	/**
-	 * Adds one to the piece counts for a given colour
-	 * @param side the given colour for which to increment the piece counts
+	 * Gets the material value of a type of piece, as used by the evaluation
+	 * @param pieceID the piece ID
+	 * @return the value of the piece, where a pawn is worth 100
 	 */
-	public void incrementPieceCount (Color side)
+	public static int getPieceValue (int pieceID)
 	{
-		if (side == Color.WHITE)
-			whitePieceCount++;
-		else
-			blackPieceCount++;
-		pieceCount++;
+		return PIECE_VALUES[pieceID];
 	}
 	
 	/**
-	 * Subtracts one from the piece counts of a given colour
-	 * @param side the given colour for which to subtract the piece counts
+	 * Gets how far the game is from the endgame, by the pieces other than pawns and kings on the board
+	 * @return MAX_PHASE with all of the pieces on the board, falling to 0 with only pawns and kings left
 	 */
-	public void decrementPieceCount (Color side)
+	public int getPhase ()
 	{
-		if (side == Color.WHITE)
-			whitePieceCount--;
-		else
-			blackPieceCount--;
-		pieceCount--;
+		return Math.min(phase, MAX_PHASE);
 	}
 	
 	/**
-	 * Gets the version of the position score table that should be used based on how many
-	 * pieces are on the board
-	 * @return the index of the version of the table that should be used
+	 * Works out the doubled, isolated, backward and passed pawns of both sides, putting the middle
+	 * game and endgame scores from white's point of view and the passed pawns in pawnMiddleGameScore,
+	 * pawnEndgameScore and passedPawns
 	 */
-	public int getTableVersion()
+	private void evaluatePawnStructure ()
 	{
-		if (pieceCount > 20)
-			return 0;
-		else if (pieceCount > 16)
-			return 1;
-		else
-			return 2;
+		int middleGame = 0;
+		int endgame = 0;
+		long passed = 0;
+		
+		for (int side = SIDE_WHITE; side <= SIDE_BLACK; side++) {
+			long own = pieces[side * 6 + PAWN];
+			long enemy = pieces[(side ^ 1) * 6 + PAWN];
+			int sideMiddleGame = 0;
+			int sideEndgame = 0;
+			
+			long bb = own;
+			while (bb != 0) {
+				int sq = Long.numberOfTrailingZeros(bb);
+				bb &= bb - 1;
+				int col = sq & 7;
+				
+				// A pawn with another of its side's pawns in front of it is doubled, and only the
+				// front one can be passed
+				boolean doubled = (Bitboards.FRONT_SPANS[side][sq] & own) != 0;
+				if (doubled) {
+					sideMiddleGame += DOUBLED_PAWN[0];
+					sideEndgame += DOUBLED_PAWN[1];
+				}
+				
+				// An isolated pawn has no pawns of its side on the columns next to it, and a backward
+				// pawn has them all in front of it and cannot move up without being captured
+				if ((Bitboards.ADJACENT_COLUMNS[col] & own) == 0) {
+					sideMiddleGame += ISOLATED_PAWN[0];
+					sideEndgame += ISOLATED_PAWN[1];
+				} else if ((Bitboards.ADJACENT_COLUMNS[col] & ~Bitboards.PASSED_PAWN_MASKS[side][sq] & own) == 0
+						&& (Bitboards.PAWN_ATTACKS[side][side == SIDE_WHITE ? sq - 8 : sq + 8] & enemy) != 0) {
+					sideMiddleGame += BACKWARD_PAWN[0];
+					sideEndgame += BACKWARD_PAWN[1];
+				}
+				
+				// A passed pawn has no enemy pawns in front of it on its own or the next columns
+				if (!doubled && (Bitboards.PASSED_PAWN_MASKS[side][sq] & enemy) == 0) {
+					int row = side == SIDE_WHITE ? 7 - (sq >> 3) : sq >> 3;
+					sideMiddleGame += PASSED_PAWN_MIDDLE_GAME[row];
+					sideEndgame += PASSED_PAWN_ENDGAME[row];
+					passed |= 1L << sq;
+				}
+			}
+			
+			middleGame += side == SIDE_WHITE ? sideMiddleGame : -sideMiddleGame;
+			endgame += side == SIDE_WHITE ? sideEndgame : -sideEndgame;
+		}
+		
+		pawnMiddleGameScore = middleGame;
+		pawnEndgameScore = endgame;
+		passedPawns = passed;
+	}
+	
+	/**
+	 * Blends a middle game and an endgame score by the game phase, so that the score slides smoothly
+	 * from one to the other as pieces are traded instead of jumping between table versions
+	 * @param middleGame the middle game score
+	 * @param endgame the endgame score
+	 * @param phase the game phase (see getPhase)
+	 * @return the blended score
+	 */
+	private static int taper (int middleGame, int endgame, int phase)
+	{
+		return (middleGame * phase + endgame * (MAX_PHASE - phase)) / MAX_PHASE;
 	}
 }
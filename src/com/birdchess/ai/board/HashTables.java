@@ -0,0 +1,31 @@
+package com.birdchess.ai.board;
+
+/**
+ * Helpers shared by the fixed size tables indexed by hash keys: the pawn hash table, the
+ * transposition table and the evaluation cache
+ *
+ * @author agent
+ * @version October 2026
+ */
+public final class HashTables
+{
+	// The most entries a table may have, so that its arrays stay within the limits of an int index
+	private static final int MAX_ENTRIES = 1 << 30;
+	
+	private HashTables ()
+	{
+	}
+	
+	/**
+	 * Works out how many entries a table gets: the largest power of two number of entries that fits
+	 * in the given memory, so that a key can be masked down to an index, and always at least one
+	 * @param bytes the most memory the table may take up, in bytes
+	 * @param entryBytes the number of bytes taken up by each entry
+	 * @return the number of entries
+	 */
+	public static int entriesFor (long bytes, int entryBytes)
+	{
+		long maxEntries = Math.max(1, bytes / entryBytes);
+		return Integer.highestOneBit((int) Math.min(maxEntries, MAX_ENTRIES));
+	}
+}
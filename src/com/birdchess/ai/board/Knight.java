@@ -1,11 +1,6 @@
 package com.birdchess.ai.board;
 
 import java.awt.Color;
-import java.util.ArrayList;
-import java.util.HashSet;
-
-import com.birdchess.common.Move;
-import com.birdchess.common.Position;
 
 /**
  * Creates a new Knight object that extends the behavior of a Piece object
@@ -28,89 +23,6 @@ public class Knight extends Piece
 	}
 
 	
-	/**
-	 * Generates a list of legal moves this knight can make given
-	 * the board and its position
-	 * 
-	 * @param board the board that this object is on
-	 * @param pos the position of this object on the given board
-	 * @return a list of legal moves that can be made by this object 
-	 * given its board and position
-	 */
-	public ArrayList<Move> generateLegalMoves(Board board, Position pos)
-	{
-		//Declare the ArrayList of legal movements for a Knight
-		ArrayList<Move> legalMoves = new ArrayList<Move>();
-
-		
-		//Check for legal movements for the Knight (L shaped moves)
-		for (int addRow = 1; addRow <= 2; addRow ++)
-			for (int addCol = 1; addCol <= 2; addCol ++)
-				//Do not allow diagonal movement
-				if (addRow != addCol)
-				{
-					//Only allow legal movements that are on the grid, and add
-					//all possible movements of the knight for a certain
-					//amount of rows and columns away from the original location
-					if (isOnBoard (board, pos.row + addRow, pos.col + addCol))
-					{
-						//Add the coordinates to the map of legal moves
-						legalMoves.add(new Move(pos, new Position
-								(pos.row + addRow, pos.col + addCol), board));
-					}
-
-					
-					//Check to see if the move is on the board
-					if (isOnBoard (board, pos.row + addRow, pos.col - addCol))
-					{
-						//Add the coordinates to the map of legal moves
-						legalMoves.add(new Move(pos, new Position
-								(pos.row + addRow, pos.col - addCol), board));
-					}
-
-					
-					//Check to see if the move is on the board
-					if (isOnBoard (board, pos.row - addRow, pos.col + addCol))
-					{
-						//Add the coordinates to the map of legal moves
-						legalMoves.add(new Move(pos, new Position
-								(pos.row - addRow, pos.col + addCol), board));
-					}
-
-					
-					//Check to see if the move is on the board
-					if (isOnBoard (board, pos.row - addRow, pos.col - addCol))
-					{
-						//Add the coordinates to the map of legal moves
-						legalMoves.add(new Move(pos, new Position
-								(pos.row - addRow, pos.col - addCol), board));
-					}
-				}
-		
-		
-		//Remove all allied pieces from the list of legal moves
-		for (int i = 0; i < legalMoves.size(); i++)
-		{
-			//Track the moves and the piece located at the position of the move
-			Move move = legalMoves.get(i);
-			Piece piece = board.getPiece(move.target);
-			
-			//When an allied piece is targeted, remove the move from the list
-			//of legal movements
-			if (piece != null && piece.getColor () == 
-					board.getPiece (move.source).getColor ())
-			{
-				legalMoves.remove(i);
-				
-				//Subtract from the index to prevent logic errors
-				i--;
-			}
-		}
-		
-		return legalMoves;
-	}
-
-	
 	/**
 	 * Generates the name for this type of piece
 	 * @return a string representation for the name of this piece
@@ -0,0 +1,61 @@
+package com.birdchess.ai.board;
+
+/**
+ * A preallocated list of packed moves with a score for each move. The search keeps one list per
+ * ply and reuses it for every node at that ply, so generating moves allocates nothing
+ *
+ * @author agent
+ * @version October 2026
+ */
+public final class MoveList
+{
+	// More than the number of moves possible in any legal position
+	public static final int CAPACITY = 256;
+	
+	// The packed moves and the ordering score of each move
+	public final int [] moves = new int [CAPACITY];
+	public final int [] scores = new int [CAPACITY];
+	
+	// The number of moves in the list
+	public int size;
+	
+	/**
+	 * Removes all moves from the list
+	 */
+	public void clear ()
+	{
+		size = 0;
+	}
+	
+	/**
+	 * Adds a move to the end of the list
+	 * @param move the packed move to add
+	 */
+	public void add (int move)
+	{
+		moves[size++] = move;
+	}
+	
+	/**
+	 * Moves the best scored move out of the remaining moves to a given index, so that the list
+	 * only gets sorted as far as the search actually goes through it
+	 * @param index the index of the first move that has not been picked yet
+	 * @return the picked move
+	 */
+	public int pickNext (int index)
+	{
+		int best = index;
+		for (int i = index + 1; i < size; i++) {
+			if (scores[i] > scores[best])
+				best = i;
+		}
+		
+		int move = moves[best];
+		int score = scores[best];
+		moves[best] = moves[index];
+		scores[best] = scores[index];
+		moves[index] = move;
+		scores[index] = score;
+		return move;
+	}
+}
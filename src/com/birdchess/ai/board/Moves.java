@@ -0,0 +1,146 @@
+package com.birdchess.ai.board;
+
+/**
+ * Packs moves into single ints so that the search can generate and store them without
+ * allocating any objects. Squares are indexed row * 8 + col, and pieces are identified by
+ * their piece codes (side * 6 + piece ID)
+ * 		bits 0-5: source square
+ * 		bits 6-11: target square
+ * 		bits 12-13: special move flag
+ * 		bits 14-16: piece ID to promote to
+ * 		bits 17-20: piece code of the moving piece
+ * 		bits 21-24: piece code of the captured piece + 1, or 0 if nothing is captured
+ *
+ * @author agent
+ * @version October 2026
+ */
+public final class Moves
+{
+	// The value used for "no move"; it moves from and to the same square so it is never legal
+	public static final int NO_MOVE = 0;
+	
+	// Flags for special moves
+	public static final int FLAG_NONE = 0;
+	public static final int FLAG_CASTLE = 1;
+	public static final int FLAG_EN_PASSANT = 2;
+	public static final int FLAG_PROMOTION = 3;
+	
+	private Moves ()
+	{
+	}
+	
+	/**
+	 * Packs a move into an int
+	 * @param from the source square
+	 * @param to the target square
+	 * @param piece the piece code of the moving piece
+	 * @param captured the piece code of the captured piece, or Board.EMPTY
+	 * @param flag the special move flag
+	 * @param promotion the piece ID to promote to, only used for promotions
+	 * @return the packed move
+	 */
+	public static int create (int from, int to, int piece, int captured, int flag, int promotion)
+	{
+		return from | (to << 6) | (flag << 12) | (promotion << 14) | (piece << 17) | ((captured + 1) << 21);
+	}
+	
+	/**
+	 * Gets the source square of a move
+	 * @param move the packed move
+	 * @return the square the piece moves from
+	 */
+	public static int getSource (int move)
+	{
+		return move & 63;
+	}
+	
+	/**
+	 * Gets the target square of a move
+	 * @param move the packed move
+	 * @return the square the piece moves to
+	 */
+	public static int getTarget (int move)
+	{
+		return (move >>> 6) & 63;
+	}
+	
+	/**
+	 * Gets the special move flag of a move
+	 * @param move the packed move
+	 * @return one of the FLAG constants
+	 */
+	public static int getFlag (int move)
+	{
+		return (move >>> 12) & 3;
+	}
+	
+	/**
+	 * Gets the piece ID a move promotes to
+	 * @param move the packed move
+	 * @return the piece ID to promote to, only meaningful for promotions
+	 */
+	public static int getPromotion (int move)
+	{
+		return (move >>> 14) & 7;
+	}
+	
+	/**
+	 * Gets the moving piece of a move
+	 * @param move the packed move
+	 * @return the piece code of the moving piece
+	 */
+	public static int getPiece (int move)
+	{
+		return (move >>> 17) & 15;
+	}
+	
+	/**
+	 * Gets the captured piece of a move
+	 * @param move the packed move
+	 * @return the piece code of the captured piece, or Board.EMPTY if nothing is captured
+	 */
+	public static int getCaptured (int move)
+	{
+		return ((move >>> 21) & 15) - 1;
+	}
+	
+	/**
+	 * Checks whether two packed moves move from and to the same squares in the same way, ignoring
+	 * the pieces recorded in them
+	 * @param move the first packed move
+	 * @param other the second packed move
+	 * @return true if the moves have the same source, target, flag and promotion piece
+	 */
+	public static boolean isSameMove (int move, int other)
+	{
+		return ((move ^ other) & 0x1FFFF) == 0;
+	}
+	
+	/**
+	 * Checks whether a move captures a piece
+	 * @param move the packed move
+	 * @return true if the move captures a piece, including en passant, false otherwise
+	 */
+	public static boolean isCapture (int move)
+	{
+		return (move >>> 21) != 0;
+	}
+	
+	/**
+	 * Writes a move in coordinate notation, such as e2e4, or e7e8q for a promotion
+	 * @param move the packed move
+	 * @return the source and target squares of the move, followed by the promotion piece if any
+	 */
+	public static String toNotation (int move)
+	{
+		int from = getSource(move);
+		int to = getTarget(move);
+		String notation = "" + (char) ('a' + (from & 7)) + (8 - (from >> 3))
+				+ (char) ('a' + (to & 7)) + (8 - (to >> 3));
+		
+		// Promotion pieces are named by their piece IDs
+		if (getFlag(move) == FLAG_PROMOTION)
+			notation += "bknpqr".charAt(getPromotion(move));
+		return notation;
+	}
+}
@@ -0,0 +1,102 @@
+package com.birdchess.ai.board;
+
+/**
+ * A fixed size table of pawn structure scores indexed by pawn hash keys, which only depend on
+ * where the pawns are. The pawns move far less often than the other pieces, so almost every board
+ * the search evaluates finds its pawn structure already worked out. A table is only ever used by
+ * one thread, so entries are stored without any checks against other writers
+ *
+ * @author agent
+ * @version October 2026
+ */
+public class PawnHashTable
+{
+	// The number of bytes taken up by each entry
+	private static final int ENTRY_SIZE = 20;
+	
+	// The pawn key of every entry. An empty entry has the key 0, which only a board without pawns
+	// has, and the empty entry's scores of 0 and no passed pawns are right for that board anyway
+	private final long [] keys;
+	
+	// The middle game and endgame pawn structure scores of every entry from white's point of view,
+	// packed into the upper and lower 16 bits
+	private final int [] scores;
+	
+	// The passed pawns of both sides of every entry
+	private final long [] passedPawns;
+	
+	// Masks a key down to an index in the table
+	private final int indexMask;
+	
+	/**
+	 * Constructs a new empty pawn hash table
+	 * @param sizeInMB the most memory the table may take up, in megabytes
+	 */
+	public PawnHashTable (int sizeInMB)
+	{
+		int entries = HashTables.entriesFor((long) sizeInMB * 1024 * 1024, ENTRY_SIZE);
+		
+		keys = new long [entries];
+		scores = new int [entries];
+		passedPawns = new long [entries];
+		indexMask = entries - 1;
+	}
+	
+	/**
+	 * Looks up the entry of a pawn structure
+	 * @param pawnKey the pawn hash key of the board
+	 * @return the index of the entry, or -1 if the pawn structure is not in the table
+	 */
+	public int probe (long pawnKey)
+	{
+		int index = (int) pawnKey & indexMask;
+		return keys[index] == pawnKey ? index : -1;
+	}
+	
+	/**
+	 * Stores the evaluation of a pawn structure, replacing whatever was in its entry
+	 * @param pawnKey the pawn hash key of the board
+	 * @param middleGame the middle game pawn structure score from white's point of view
+	 * @param endgame the endgame pawn structure score from white's point of view
+	 * @param passed the passed pawns of both sides
+	 * @return the index of the entry
+	 */
+	public int store (long pawnKey, int middleGame, int endgame, long passed)
+	{
+		int index = (int) pawnKey & indexMask;
+		keys[index] = pawnKey;
+		scores[index] = (middleGame << 16) | (endgame & 0xFFFF);
+		passedPawns[index] = passed;
+		return index;
+	}
+	
+	/**
+	 * Gets the middle game pawn structure score of an entry
+	 * @param index the index of the entry
+	 * @return the score from white's point of view
+	 */
+	public int getMiddleGameScore (int index)
+	{
+		return scores[index] >> 16;
+	}
+	
+	/**
+	 * Gets the endgame pawn structure score of an entry
+	 * @param index the index of the entry
+	 * @return the score from white's point of view
+	 */
+	public int getEndgameScore (int index)
+	{
+		return (short) scores[index];
+	}
+	
+	/**
+	 * Gets the passed pawns of an entry
+	 * @param index the index of the entry
+	 * @return a bitboard of the passed pawns of both sides
+	 */
+	public long getPassedPawns (int index)
+	{
+		return passedPawns[index];
+	}
+}
@@ -2,9 +2,6 @@ package com.birdchess.ai.board;
 
 import java.awt.Color;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 
 import com.birdchess.common.Move;
 import com.birdchess.common.Position;
@@ -43,8 +40,11 @@ public abstract class Piece
 	 * @return an ArrayList of all legal moves the piece can make at its current
 	 * position
 	 */
-	public abstract ArrayList<Move> 
-	generateLegalMoves (Board board, Position pos);
+	public ArrayList<Move> generateLegalMoves (Board board, Position pos)
+	{
+		//The board generates the moves of every type of piece from its bitboards
+		return board.generateMovesFrom(pos);
+	}
 
 	
 	/** 
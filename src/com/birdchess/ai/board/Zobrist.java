@@ -0,0 +1,49 @@
+package com.birdchess.ai.board;
+
+import java.util.Random;
+
+/**
+ * The random numbers used to build the Zobrist hash key of a board. The key of a board is the
+ * exclusive or of the numbers of every piece on its square, of the castling rights, of the
+ * en passant column and of the side to move, so a move only has to change the parts it touches
+ *
+ * @author agent
+ * @version October 2026
+ */
+final class Zobrist
+{
+	// A number for every piece code on every square
+	// 		number = PIECES[pieceCode][square]
+	static final long [][] PIECES = new long [12][64];
+	
+	// A number for every combination of castling rights
+	static final long [] CASTLING = new long [16];
+	
+	// A number for the column of every en passant square
+	static final long [] EN_PASSANT = new long [8];
+	
+	// Added to the key when black is to move
+	static final long SIDE;
+	
+	static
+	{
+		// A fixed seed, so that keys are the same every time the program runs
+		Random random = new Random (0x5DEECE66DL);
+		
+		for (int piece = 0; piece < 12; piece++) {
+			for (int sq = 0; sq < 64; sq++)
+				PIECES[piece][sq] = random.nextLong();
+		}
+		
+		// No castling rights at all leave the key unchanged
+		for (int i = 1; i < 16; i++)
+			CASTLING[i] = random.nextLong();
+		for (int i = 0; i < 8; i++)
+			EN_PASSANT[i] = random.nextLong();
+		SIDE = random.nextLong();
+	}
+	
+	private Zobrist ()
+	{
+	}
+}
@@ -1,22 +1,23 @@
 package com.birdchess.ai.core;
 
 import java.awt.Color;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedList;
-import java.util.List;
-import java.util.PriorityQueue;
 import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.birdchess.ai.board.Board;
-import com.birdchess.ai.board.King;
+import com.birdchess.ai.board.MoveList;
+import com.birdchess.ai.board.Moves;
+import com.birdchess.ai.board.PawnHashTable;
 import com.birdchess.common.Move;
 import com.birdchess.common.Player;
-import com.birdchess.common.Position;
 
 /**
  * Represents a computer chess player
@@ -24,7 +25,89 @@ import com.birdchess.common.Position;
  * @version January 2013
  */
 public class CpuPlayer extends Player {
-	// The depth of the minimax search
+	// The deepest ply the search can reach, used to size the per-thread move lists
+	protected static final int MAX_PLY = 64;
+	
+	// The score of a checkmated board for the side to move is -SCORE_MATE plus the number of plies
+	// from the starting board, so that quicker mates score higher; any score this close to
+	// SCORE_MATE is a mate found by the search rather than an evaluation
+	protected static final int SCORE_MATE = Board.SCORE_MATE;
+	protected static final int SCORE_MATE_BOUND = SCORE_MATE - 2 * MAX_PLY;
+	
+	// A score higher than any real score, used as the initial bounds of the search. It is kept well
+	// away from the integer limits so that negating it or adding to it cannot overflow
+	protected static final int SCORE_INFINITY = SCORE_MATE + 1;
+	
+	// The number of passive moves (neither captures nor pawn moves) in a row after which the game
+	// is drawn, counted the same way as Game does
+	private static final int FIFTY_MOVE_LIMIT = 50;
+	
+	// The distance either side of the last depth's score at which the next depth's search starts,
+	// and the first depth to search with such a window
+	private static final int ASPIRATION_WINDOW = 50;
+	private static final int ASPIRATION_MIN_DEPTH = 4;
+	
+	// Ways of dividing the search between threads: every thread searching the whole tree and sharing
+	// the transposition table (Lazy SMP), or the moves of the starting board handed out to threads
+	// one at a time, sharing the best score so far
+	public static final int SEARCH_LAZY_SMP = 0;
+	public static final int SEARCH_ROOT_SPLIT = 1;
+	
+	// The default size of the transposition table in megabytes
+	public static final int DEFAULT_HASH_SIZE = 16;
+	
+	// The default size of the evaluation cache in megabytes
+	public static final int DEFAULT_EVALUATION_CACHE_SIZE = 4;
+	
+	// The size of each search thread's pawn hash table in megabytes
+	public static final int PAWN_HASH_SIZE = 1;
+	
+	// The default time limits of a search in milliseconds. No new depth is started after the soft
+	// limit, and the search is stopped outright at the hard limit
+	public static final int DEFAULT_SOFT_TIME_LIMIT = 2000;
+	public static final int DEFAULT_HARD_TIME_LIMIT = 6000;
+	
+	// The least depth at which the side to move may pass to see whether its position is still good
+	// enough for a cut-off (null move pruning), the depth at which the pass is searched to a greater
+	// reduction, and the least depth at which a cut-off from a pass is checked with a real search
+	private static final int NULL_MOVE_MIN_DEPTH = 4;
+	private static final int NULL_MOVE_DEEP_DEPTH = 7;
+	private static final int NULL_MOVE_VERIFICATION_DEPTH = 7;
+	
+	// The least depth at which late moves are searched shallower first, and the number of moves
+	// searched at full depth before that starts (the hash move and the killer moves, usually)
+	private static final int LATE_MOVE_MIN_DEPTH = 3;
+	private static final int LATE_MOVE_MIN_MOVES = 3;
+	
+	// How many plies shallower a late move is searched first, by depth and by how many moves were
+	// searched before it
+	// 		reduction = LATE_MOVE_REDUCTIONS[depth][moveNumber]
+	private static final int [][] LATE_MOVE_REDUCTIONS = new int [MAX_PLY][64];
+	
+	static
+	{
+		// The reduction grows with the logarithms of both, so that it stays small for the first
+		// late moves and at low depths
+		for (int depth = 1; depth < MAX_PLY; depth++) {
+			for (int moveNumber = 1; moveNumber < 64; moveNumber++)
+				LATE_MOVE_REDUCTIONS[depth][moveNumber] = (int) (0.75 + Math.log(depth) * Math.log(moveNumber) / 2.25);
+		}
+	}
+	
+	// The history score at which every history score is halved, so that recent cut-offs count for
+	// more than old ones
+	private static final int HISTORY_LIMIT = 1 << 16;
+	
+	// How many nodes are searched between checks of the clock
+	private static final int TIME_CHECK_INTERVAL = 1024;
+	
+	// Which depths each helper thread skips, so that the helpers spread out over different depths
+	// instead of all searching the same tree at the same time. Helper i skips a depth d when
+	// 		((d + SKIP_PHASES[(i - 1) % 20]) / SKIP_SIZES[(i - 1) % 20]) is odd
+	private static final int [] SKIP_SIZES = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+	private static final int [] SKIP_PHASES = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+	
+	// The greatest depth of the minimax search
 	protected int maxDepth;
 	
 	// The depth of the quiescent search
@@ -32,11 +115,46 @@ public class CpuPlayer extends Player {
 	
 	protected int cpuCount;
 	
-	// Scores for every possible move for a given board
-	protected int [] moveScores;
+	// How the search is divided between threads, one of the SEARCH constants
+	protected int searchMode;
+	
+	// Whether cut-offs from null moves are checked with a real search at high depths
+	protected boolean nullMoveVerification;
+	
+	// The settings of the pruning near the leaves of the search
+	protected SearchParameters searchParameters;
+	
+	// Results of earlier searches, shared by all of the worker threads
+	protected TranspositionTable transpositionTable;
+	
+	// Static evaluations of boards, shared by all of the worker threads
+	protected EvaluationCache evaluationCache;
+	
+	// Pawn structure scores, one table for each thread that searches so that they are never shared
+	// and are kept from one search to the next
+	protected ThreadLocal<PawnHashTable> pawnTables;
+	
+	// The time limits of a search in milliseconds
+	protected int softTimeLimit;
+	protected int hardTimeLimit;
+	
+	// The times at which the current search started and must stop, and whether it has been told to stop
+	protected long searchStartTime;
+	protected long hardDeadline;
+	protected volatile boolean stopSearch;
 	
 	ThreadPoolExecutor threadPool;
 	
+	// The threads that moves of the starting board are handed out to in a root split search, the best
+	// score found so far, and the board each of those threads searches from
+	ForkJoinPool forkJoinPool;
+	AtomicInteger rootLowerLimit;
+	ThreadLocal<CpuThread> rootSplitThreads;
+	
+	// The board the current search started on, and how many searches have been started
+	protected Board rootBoard;
+	protected int searchCount;
+	
 	/**
 	 * Constructs a new computer player object given its colour and search depth
 	 * @param color the colour of the computer player (Color.WHITE or Color.BLACK)
@@ -48,227 +166,901 @@ public class CpuPlayer extends Player {
 		maxDepth = depth;
 		captureSearchDepth = 1;
 		cpuCount = Runtime.getRuntime().availableProcessors();
+		transpositionTable = new TranspositionTable(DEFAULT_HASH_SIZE);
+		evaluationCache = new EvaluationCache(DEFAULT_EVALUATION_CACHE_SIZE);
+		softTimeLimit = DEFAULT_SOFT_TIME_LIMIT;
+		hardTimeLimit = DEFAULT_HARD_TIME_LIMIT;
 		
 		threadPool = new ThreadPoolExecutor(cpuCount, cpuCount + 1, 10, TimeUnit.SECONDS,
 						new ArrayBlockingQueue<Runnable>(cpuCount + 1));
+		forkJoinPool = new ForkJoinPool(cpuCount);
+		rootLowerLimit = new AtomicInteger();
+		rootSplitThreads = new ThreadLocal<CpuThread>();
+		pawnTables = new ThreadLocal<PawnHashTable>() {
+			protected PawnHashTable initialValue ()
+			{
+				return new PawnHashTable(PAWN_HASH_SIZE);
+			}
+		};
+		searchMode = SEARCH_LAZY_SMP;
+		nullMoveVerification = true;
+		searchParameters = new SearchParameters();
 		isHuman = false;
 	}
 	
 	/**
-	 * Represents a worker thread used to search a part of the minimax tree
+	 * Represents a thread searching the whole minimax tree. All of the threads search the same
+	 * board at once and share their results through the transposition table; thread 0 is the main
+	 * thread, whose move is played, and the others are helpers that only fill the table
 	 * @author Jeffrey Yang and Charley Huang
 	 * @version January 2013
 	 */
 	protected class CpuThread implements Runnable
 	{
-		// A copy of the starting board
+		// A private copy of the starting board, on which this thread makes and unmakes its moves
 		Board b;
 		
-		// The list of moves to score
-		List<Move> moves;
+		// This thread's copy of the legal moves on the starting board, in the order to search them
+		MoveList rootMoves;
+		
+		// The index of this thread, where 0 is the main thread
+		int threadIndex;
+		
+		// One move picker per ply of the search
+		MovePicker [] movePickers;
+		
+		// The pawn hash table of the thread running this search
+		PawnHashTable pawnTable;
 		
-		int scoreIndex;
+		// The two latest quiet moves that caused a cut-off at each ply
+		// 		move = killers[ply][slot]
+		int [][] killers;
+		
+		// How often each quiet move has caused a cut-off, weighted by the depth it was searched to
+		// 		score = history[side * 4096 + sourceSquare * 64 + targetSquare]
+		int [] history;
+		
+		// The quiet move that last caused a cut-off in reply to each move
+		// 		move = counterMoves[pieceCode * 64 + targetSquare], for the move replied to
+		int [] counterMoves;
+		
+		// The side of this computer player
+		int cpuSide;
+		
+		// The number of boards this thread has searched
+		int nodes;
+		
+		// The best move and the depth of the last search this thread completed
+		int bestMove;
+		int completedDepth;
+		
+		// The score and the principal variation (the moves both sides are expected to play) of the
+		// last search this thread completed
+		int previousScore;
+		int [] principalVariation;
+		
+		// The principal variation found from each ply of the current search
+		// 		move = pv[ply][i], for ply <= i < pvLength[ply]
+		int [][] pv;
+		int [] pvLength;
+		
+		// The number of the search this thread was made for
+		int searchNumber;
 		
 		/**
-		 * Constructs a new worker thread in preparation for a part of the minimax search
+		 * Constructs a new thread in preparation for the minimax search
 		 * @param b the board that the search begins in
-		 * @param moves a list of possible moves that can be made on on the given board; 
-		 * 			all to be scored
-		 * @param startIndex the index for the first move in the given list, in the array of
-		 * 			score values
+		 * @param legalMoves the legal moves on the given board, best looking first
+		 * @param threadIndex the index of the thread, where 0 is the main thread
 		 */
-		public CpuThread (Board b, List<Move> moves, int startIndex)
+		public CpuThread (Board b, MoveList legalMoves, int threadIndex)
 		{
-			this.b = b;
-			this.moves = moves;
-			this.scoreIndex = startIndex;
+			this.b = new Board (b);
+			this.threadIndex = threadIndex;
+			searchNumber = searchCount;
+			
+			rootMoves = new MoveList();
+			for (int i = 0; i < legalMoves.size; i++)
+				rootMoves.add(legalMoves.moves[i]);
+			bestMove = rootMoves.moves[0];
+			principalVariation = new int [] {bestMove};
+			
+			movePickers = new MovePicker [MAX_PLY];
+			for (int i = 0; i < MAX_PLY; i++)
+				movePickers[i] = new MovePicker();
+			killers = new int [MAX_PLY][2];
+			history = new int [2 * 64 * 64];
+			counterMoves = new int [12 * 64];
+			pv = new int [MAX_PLY + 1][MAX_PLY + 1];
+			pvLength = new int [MAX_PLY + 1];
+			cpuSide = Board.sideOf(side);
 		}
 		
 		/**
-		 * Begins this object's given portion of the minimax search
+		 * Searches one ply deeper each time, until the greatest depth is reached or the search is
+		 * stopped. The main thread also stops starting new depths once the soft time limit has
+		 * passed, and then stops the helpers
 		 */
 		public void run() {
-			Color opponent = (side == Color.BLACK ? Color.WHITE : Color.BLACK);
+			for (int depth = 1; depth <= maxDepth && !stopSearch; depth++)
+			{
+				if (threadIndex > 0) {
+					int i = (threadIndex - 1) % SKIP_SIZES.length;
+					if (((depth + SKIP_PHASES[i]) / SKIP_SIZES[i]) % 2 != 0)
+						continue;
+				} else if (System.currentTimeMillis() - searchStartTime >= softTimeLimit) {
+					break;
+				}
+				
+				searchRoot(depth);
+				
+				// If the search was stopped part way through, keep the move of the last complete search
+				if (stopSearch)
+					break;
+				bestMove = rootMoves.moves[0];
+				completedDepth = depth;
+				principalVariation = getRootPv();
+				
+				// A mate within the depth searched cannot be improved on by searching deeper
+				if (isMateWithin(previousScore, depth))
+					break;
+			}
 			
-			// For every move assigned to this worker, make the move and evaluate and record the
-			// score of the board after making the move
-			for (Move currentMove : moves) {				
-				Board nextBoard = new Board (b);
-				nextBoard.makeMove(currentMove);
+			if (threadIndex == 0)
+				stopSearch = true;
+		}
+		
+		/**
+		 * Scores every legal move on the starting board to a given depth, and then puts the moves
+		 * in order of their scores so that the best move is first. From ASPIRATION_MIN_DEPTH on, the
+		 * search starts with a narrow window around the score of the last depth, which cuts off far
+		 * more boards, and is searched again with a wider window on whichever side the score falls
+		 * outside of it
+		 * @param depth the depth to search each move to
+		 */
+		private void searchRoot (int depth)
+		{
+			int lowerLimit = -SCORE_INFINITY;
+			int upperLimit = SCORE_INFINITY;
+			int window = ASPIRATION_WINDOW;
+			if (depth >= ASPIRATION_MIN_DEPTH && Math.abs(previousScore) < SCORE_MATE_BOUND) {
+				lowerLimit = clampScore((long) previousScore - window);
+				upperLimit = clampScore((long) previousScore + window);
+			}
+			
+			while (true) {
+				int score = searchRootWindow(depth, lowerLimit, upperLimit);
+				if (stopSearch)
+					return;
 				
-				int score = -findMoveScore (nextBoard, maxDepth, opponent, Integer.MIN_VALUE, Integer.MAX_VALUE);
+				if (score <= lowerLimit && lowerLimit > -SCORE_INFINITY)
+					lowerLimit = clampScore((long) score - window);
+				else if (score >= upperLimit && upperLimit < SCORE_INFINITY)
+					upperLimit = clampScore((long) score + window);
+				else {
+					previousScore = score;
+					break;
+				}
+				window *= 2;
+			}
+			
+			for (int i = 0; i < rootMoves.size; i++)
+				rootMoves.pickNext(i);
+		}
+		
+		/**
+		 * Scores the legal moves on the starting board within a window, building the principal
+		 * variation of the best one
+		 * @param depth the depth to search each move to
+		 * @param lowerLimit the lower limit of the window
+		 * @param upperLimit the upper limit of the window
+		 * @return the best score found, which is only an upper limit if it is at most lowerLimit and
+		 * 			only a lower limit if it is at least upperLimit
+		 */
+		private int searchRootWindow (int depth, int lowerLimit, int upperLimit)
+		{
+			int bestScore = -SCORE_INFINITY;
+			pvLength[0] = 0;
+			
+			// Moves that cannot beat the best move so far only get an upper limit for their score,
+			// which is enough to put them after the best move
+			for (int i = 0; i < rootMoves.size; i++) {
+				int move = rootMoves.moves[i];
+				int score = searchRootMove(move, depth, lowerLimit, upperLimit, i == 0);
+				if (stopSearch)
+					break;
 				
-				moveScores[scoreIndex++] = score;
+				rootMoves.scores[i] = score;
+				if (score > bestScore)
+					bestScore = score;
+				if (score > lowerLimit) {
+					lowerLimit = score;
+					updatePv(0, move);
+				}
+				if (lowerLimit >= upperLimit)
+					break;
 			}
+			return bestScore;
 		}
-	}
-	
-	/**
-	 * Calculates the optimal move that this computer player should make on a given board
-	 * @param b the given board
-	 * @return an object specifying the move to make
-	 */
-	public Move getNextMove (Board b)
-	{		
-		long startTime = System.currentTimeMillis();
 		
-		// Generate all possible moves for this player on the board
-		ArrayList<Move> legalMoves = new ArrayList<Move>(b.getAllPossibleMovesBySide(side));
-		
-		// From this list, eliminate the illegal moves (moves that would result in the king
-		// being in check after the move is made
-		for (int i = 0; i < legalMoves.size(); i++) {
-			Move current = legalMoves.get(i);
-			Board test = new Board(b);
-			test.makeMove(current);
-			King king;
-			Position pos;
-			if (side == Color.white)
-				pos = test.getWhiteKingPos();
-			else
-				pos = test.getBlackKingPos();
-			king = (King) test.getPiece(pos);
-			if (king.isInCheck(test, pos)) {
-				legalMoves.remove(i);
-				i--;
+		/**
+		 * Scores a move on the starting board. Unless it is the first move, it is first only checked
+		 * against the lower limit with a window of width one, and searched with the full window only
+		 * if it beats it (principal variation search)
+		 * @param move the packed move to score
+		 * @param depth the depth to search the move to
+		 * @param lowerLimit the best score found so far; if the move cannot beat it, the score
+		 * 			returned is only an upper limit of the move's score
+		 * @param upperLimit the upper limit of the window
+		 * @param firstMove whether the move is the first to be searched, and so gets the full window
+		 * @return the score of the move
+		 */
+		private int searchRootMove (int move, int depth, int lowerLimit, int upperLimit, boolean firstMove)
+		{
+			// The thread running this search is only known once it starts searching
+			if (pawnTable == null)
+				pawnTable = pawnTables.get();
+			
+			b.makeMove(move);
+			int score;
+			if (firstMove) {
+				score = -findMoveScore (b, depth, 1, cpuSide ^ 1, -upperLimit, -lowerLimit, true);
+			} else {
+				score = -findMoveScore (b, depth, 1, cpuSide ^ 1, -lowerLimit - 1, -lowerLimit, true);
+				if (score > lowerLimit && score < upperLimit && !stopSearch)
+					score = -findMoveScore (b, depth, 1, cpuSide ^ 1, -upperLimit, -lowerLimit, true);
 			}
+			b.unmakeMove();
+			return score;
 		}
 		
-		moveScores = new int [legalMoves.size()];
+		/**
+		 * Sets the principal variation of a ply to a move followed by the principal variation of
+		 * the next ply
+		 * @param ply the ply the move is made at
+		 * @param move the packed move
+		 */
+		private void updatePv (int ply, int move)
+		{
+			int[] line = pv[ply];
+			line[ply] = move;
+			System.arraycopy(pv[ply + 1], ply + 1, line, ply + 1, pvLength[ply + 1] - (ply + 1));
+			pvLength[ply] = pvLength[ply + 1];
+		}
 		
-		// One thread per CPU core
-		int jobsPerThread = legalMoves.size() / cpuCount;
+		/**
+		 * Gets the principal variation of the starting board found so far
+		 * @return the moves of the principal variation, starting with the move on the starting board
+		 */
+		private int [] getRootPv ()
+		{
+			return Arrays.copyOf(pv[0], pvLength[0]);
+		}
 		
-		// Used to allow the algorithm to wait for all threads to finish before continuing
-		Collection<Future<?>> futures = new LinkedList<Future<?>>();
+		/**
+		 * Counts a searched board and checks every so often whether the search has run out of time
+		 * @return true if the search has to stop, false otherwise
+		 */
+		private boolean isOutOfTime ()
+		{
+			if (++nodes % TIME_CHECK_INTERVAL == 0 && System.currentTimeMillis() >= hardDeadline)
+				stopSearch = true;
+			return stopSearch;
+		}
 		
-		// Divide and assign top nodes of the search tree to the threads
-		for (int thread = 0; thread < cpuCount; thread++)
+		/**
+		 * Gets the static evaluation of a board, from the evaluation cache if it is there
+		 * @param b the board to evaluate
+		 * @param c the side to move on the board
+		 * @return the score of the board for the side to move
+		 */
+		private int evaluate (Board b, int c)
 		{
-			CpuThread jobs;
-			if (thread == cpuCount - 1) {
-				jobs = new CpuThread(b, legalMoves.subList(thread * jobsPerThread, legalMoves.size()), thread * jobsPerThread);
-			} else {
-				jobs = new CpuThread(b, legalMoves.subList(thread * jobsPerThread, thread * jobsPerThread + jobsPerThread), thread * jobsPerThread);
+			// The cache holds scores from the point of view of this computer player
+			long key = b.getKey();
+			int score = evaluationCache.probe(key);
+			if (score == EvaluationCache.MISSING) {
+				score = b.getScore(cpuSide, pawnTable);
+				evaluationCache.store(key, score);
 			}
-			futures.add (threadPool.submit(jobs));
+			return c == cpuSide ? score : -score;
 		}
 		
-		// Wait for all threads to finish
-		try {
-			for (Future<?> future : futures)
-				future.get();
-		} catch (Exception e) {
+		/**
+		 * Recursively calculates the scores of moves using the minimax algorithm with alpha-beta pruning
+		 * @param b the current board to look ahead in; moves are made and taken back on it in place
+		 * @param depth the current depth in this branch of the search
+		 * @param ply the number of moves made since the root of the search
+		 * @param c the side of the player who is making the next move on the given board
+		 * @param lowerLimit the lower limit of the scores of this board's child boards
+		 * @param upperLimit the upper limit of the scores of the board's child boards
+		 * @param allowNullMove whether the player may pass on this board, which is not allowed right after
+		 * 			a pass or while checking a cut-off from one
+		 * @return the score of this move (the score of the board after a particular move)
+		 */
+		public int findMoveScore (Board b, int depth, int ply, int c, int lowerLimit, int upperLimit, boolean allowNullMove)
+		{
+			pvLength[ply] = ply;
 			
+			// The per-ply lists run out at MAX_PLY, however deep the search was set to go
+			if (ply >= MAX_PLY - 1)
+				return evaluate(b, c);
+			
+			// A board that repeats one earlier in the game or the search is a draw. Counting the first
+			// repetition as a draw keeps the search from going round in circles without having to
+			// find all three
+			if (b.isRepetition())
+				return 0;
+			
+			// So is a board that has gone too long without a capture or pawn move, unless the move
+			// that got there was checkmate, which is left to be scored as usual
+			if (b.getConsecPassiveMovesCount() >= FIFTY_MOVE_LIMIT && !isCheckmate(b, c, ply))
+				return 0;
+			
+			// After the normal maximum depth is reached, proceed to quiescent search
+			if (depth == 1)
+				return findMoveScoreCaptureOnly (b, captureSearchDepth, ply, c, lowerLimit, upperLimit);
+			
+			// The result of a stopped search is thrown away, so any score will do
+			if (isOutOfTime())
+				return 0;
+			
+			// Mate distance pruning: no score here can be better than mating on the next move or worse
+			// than being mated right now, so if a quicker mate has already been found elsewhere there
+			// is nothing left to search for
+			lowerLimit = Math.max(lowerLimit, -SCORE_MATE + ply);
+			upperLimit = Math.min(upperLimit, SCORE_MATE - ply - 1);
+			if (lowerLimit >= upperLimit)
+				return lowerLimit;
+			
+			// Use the stored result of this board if it was searched deep enough before, and otherwise
+			// try the best move found back then first
+			long key = b.getKey();
+			long entry = transpositionTable.probe(key);
+			int hashMove = Moves.NO_MOVE;
+			if (entry != 0) {
+				hashMove = TranspositionTable.getMove(entry);
+				if (TranspositionTable.getDepth(entry) >= depth) {
+					int score = scoreFromTable(TranspositionTable.getScore(entry), ply);
+					int bound = TranspositionTable.getBound(entry);
+					if (bound == TranspositionTable.BOUND_EXACT
+							|| (bound == TranspositionTable.BOUND_LOWER && score >= upperLimit)
+							|| (bound == TranspositionTable.BOUND_UPPER && score <= lowerLimit))
+						return score;
+				}
+			}
+			
+			// Let the opponent move twice in a row. If a shallower search still finds this board good
+			// enough for a cut-off, a real move would almost certainly do at least as well. This is
+			// only tried where a cut-off is expected, and never in check or with only pawns left,
+			// where passing can be better than any real move
+			boolean inCheck = b.isInCheck(c);
+			boolean fullWindow = (long) upperLimit - lowerLimit > 1;
+			SearchParameters parameters = searchParameters;
+			int pliesLeft = depth - 1;
+			
+			// Razoring: if the board is so far below the lower limit that even winning some material
+			// would not reach it, check with the quiescent search and give up on the board if that agrees
+			if (parameters.razoring && pliesLeft <= parameters.razorDepth && !fullWindow && !inCheck
+					&& hashMove == Moves.NO_MOVE
+					&& evaluate(b, c) + parameters.razorMargin * pliesLeft < lowerLimit) {
+				int score = findMoveScoreCaptureOnly (b, captureSearchDepth, ply, c, lowerLimit, lowerLimit + 1);
+				if (stopSearch)
+					return 0;
+				if (score <= lowerLimit)
+					return score;
+			}
+			
+			// Futility pruning: quiet moves cannot raise a board this far below the lower limit so close
+			// to the quiescent search, so they only count as reaching the futility score
+			int futilityScore = -SCORE_INFINITY;
+			if (parameters.futilityPruning && pliesLeft <= parameters.futilityDepth && !fullWindow && !inCheck) {
+				int score = evaluate(b, c) + parameters.futilityMargin * pliesLeft;
+				if (score <= lowerLimit)
+					futilityScore = score;
+			}
+			
+			if (allowNullMove && depth >= NULL_MOVE_MIN_DEPTH && !fullWindow
+					&& !inCheck && b.hasNonPawnMaterial(c) && evaluate(b, c) >= upperLimit) {
+				int reduction = depth >= NULL_MOVE_DEEP_DEPTH ? 3 : 2;
+				b.makeNullMove();
+				int score = -findMoveScore (b, depth - 1 - reduction, ply + 1, c ^ 1, -upperLimit, -upperLimit + 1, false);
+				b.unmakeNullMove();
+				if (stopSearch)
+					return 0;
+				
+				// At high depths, check the cut-off with a real search to the same depth without passing
+				if (score >= upperLimit && (!nullMoveVerification || depth < NULL_MOVE_VERIFICATION_DEPTH
+						|| findMoveScore (b, depth - reduction, ply, c, upperLimit - 1, upperLimit, false) >= upperLimit))
+					return upperLimit;
+				if (stopSearch)
+					return 0;
+			}
+			
+			int originalLowerLimit = lowerLimit;
+			int bestScore = -SCORE_INFINITY;
+			int bestMove = Moves.NO_MOVE;
+			
+			// The counter move is looked up by the piece and target square of the opponent's last move
+			int lastMove = b.getLastMove();
+			int counterIndex = lastMove == Moves.NO_MOVE ? -1 : Moves.getPiece(lastMove) * 64 + Moves.getTarget(lastMove);
+			int counterMove = counterIndex < 0 ? Moves.NO_MOVE : counterMoves[counterIndex];
+			
+			// Look at all legal moves by the given player on the given board, best looking first
+			MovePicker picker = movePickers[ply];
+			picker.init(b, c, hashMove, killers[ply][0], killers[ply][1], counterMove, history);
+			int move;
+			int movesSearched = 0;
+			while ((move = picker.next()) != Moves.NO_MOVE)
+			{
+				movesSearched++;
+				b.makeMove(move);
+				boolean quiet = !Moves.isCapture(move) && Moves.getFlag(move) != Moves.FLAG_PROMOTION;
+				boolean givesCheck = b.isInCheck(c ^ 1);
+				
+				if (futilityScore > -SCORE_INFINITY && quiet && !givesCheck) {
+					b.unmakeMove();
+					if (futilityScore > bestScore)
+						bestScore = futilityScore;
+					continue;
+				}
+				
+				// Moves that give check are searched a ply deeper, so that the reply to the check is not
+				// left to the quiescent search, as long as the search cannot run past MAX_PLY
+				int newDepth = depth - 1;
+				if (givesCheck && ply + depth < MAX_PLY - captureSearchDepth)
+					newDepth++;
+				
+				// Recursively find the score of each possible move from the given board. After the first
+				// move, moves are only checked to see whether they beat the best score so far, and are
+				// searched again with the full window if they do (principal variation search)
+				int currentScore;
+				if (movesSearched == 1) {
+					currentScore = -findMoveScore (b, newDepth, ply + 1, c ^ 1, -upperLimit, -lowerLimit, true);
+				} else {
+					// Quiet moves this late in the order rarely beat the best score, so they are first
+					// searched shallower, and again at full depth only if they do beat it
+					int reduction = 0;
+					if (depth >= LATE_MOVE_MIN_DEPTH && movesSearched > LATE_MOVE_MIN_MOVES && !inCheck
+							&& quiet && !givesCheck) {
+						reduction = LATE_MOVE_REDUCTIONS[Math.min(depth, MAX_PLY - 1)][Math.min(movesSearched, 63)];
+						if (fullWindow)
+							reduction--;
+						reduction = Math.max(0, Math.min(reduction, depth - 2));
+					}
+					
+					currentScore = -findMoveScore (b, newDepth - reduction, ply + 1, c ^ 1, -lowerLimit - 1, -lowerLimit, true);
+					if (reduction > 0 && currentScore > lowerLimit)
+						currentScore = -findMoveScore (b, newDepth, ply + 1, c ^ 1, -lowerLimit - 1, -lowerLimit, true);
+					if (currentScore > lowerLimit && currentScore < upperLimit)
+						currentScore = -findMoveScore (b, newDepth, ply + 1, c ^ 1, -upperLimit, -lowerLimit, true);
+				}
+				b.unmakeMove();
+				
+				// Do not store anything worked out from a search that was stopped part way through
+				if (stopSearch)
+					return 0;
+				
+				// Keep track of the highest
+				if (currentScore > bestScore) {
+					bestScore = currentScore;
+					bestMove = move;
+				}
+				
+				// Update bounds for alpha-beta pruning
+				if (currentScore > lowerLimit) {
+					lowerLimit = currentScore;
+					updatePv(ply, move);
+				}
+				
+				if (lowerLimit >= upperLimit) {
+					if (!Moves.isCapture(move))
+						rememberCutoff(move, c, ply, depth, counterIndex);
+					break;
+				}
+			}
+			
+			// With no legal moves, the player is either checkmated or in stalemate
+			if (movesSearched == 0)
+				return inCheck ? -SCORE_MATE + ply : 0;
+			
+			// Remember the result, noting whether the score is only a bound because the search
+			// was cut off or no move beat the lower limit
+			int bound;
+			if (bestScore >= upperLimit)
+				bound = TranspositionTable.BOUND_LOWER;
+			else if (bestScore > originalLowerLimit)
+				bound = TranspositionTable.BOUND_EXACT;
+			else
+				bound = TranspositionTable.BOUND_UPPER;
+			transpositionTable.store(key, depth, bound, scoreToTable(bestScore, ply), bestMove);
+			
+			// The score of this move or board is the optimal of those of its children
+			return bestScore;
 		}
 		
-		// Find the move with the highest calculated score
-		int bestMoveIndex = 0;
-		for (int i = 1; i < moveScores.length; i++) {
-			if (moveScores[i] > moveScores[bestMoveIndex])
-				bestMoveIndex = i;
+		/**
+		 * Checks whether the player to move on a board is checkmated
+		 * @param b the board
+		 * @param c the side to move on the board
+		 * @param ply the ply of the board, whose move picker is used to look for a legal move
+		 * @return true if the player is in check and has no legal moves, false otherwise
+		 */
+		private boolean isCheckmate (Board b, int c, int ply)
+		{
+			if (!b.isInCheck(c))
+				return false;
+			MovePicker picker = movePickers[ply];
+			picker.init(b, c, Moves.NO_MOVE, Moves.NO_MOVE, Moves.NO_MOVE, Moves.NO_MOVE, null);
+			return picker.next() == Moves.NO_MOVE;
 		}
 		
-		System.out.println("AI took: " + (System.currentTimeMillis() - startTime) + "ms");
+		/**
+		 * Records a quiet move that caused a cut-off, so that it is tried early on other boards: as a
+		 * killer move at the same ply, by its history score, and as the counter move to the
+		 * opponent's last move
+		 * @param move the packed move
+		 * @param c the side that made the move
+		 * @param ply the ply the move was made at
+		 * @param depth the depth the move was searched to
+		 * @param counterIndex the index in counterMoves of the opponent's last move, or -1 if there is none
+		 */
+		private void rememberCutoff (int move, int c, int ply, int depth, int counterIndex)
+		{
+			int[] plyKillers = killers[ply];
+			if (!Moves.isSameMove(move, plyKillers[0])) {
+				plyKillers[1] = plyKillers[0];
+				plyKillers[0] = move;
+			}
+			
+			int index = c * 4096 + Moves.getSource(move) * 64 + Moves.getTarget(move);
+			history[index] += depth * depth;
+			if (history[index] > HISTORY_LIMIT) {
+				for (int i = 0; i < history.length; i++)
+					history[i] /= 2;
+			}
+			
+			if (counterIndex >= 0)
+				counterMoves[counterIndex] = move;
+		}
 		
-		// Return the move with the highest score
-		return legalMoves.get(bestMoveIndex);
+		/**
+		 * Recursively calculates the scores of moves using the minimax algorithm with alpha-beta pruning
+		 * This is the quiescent stage in which only possible capture moves are checked, except that a
+		 * player in check tries every move that gets out of it, and that quiet moves giving check are
+		 * also tried on the first ply if the search parameters ask for it
+		 * @param b the current board to look ahead in; moves are made and taken back on it in place
+		 * @param depth the current depth in this branch of the search
+		 * @param ply the number of moves made since the root of the search
+		 * @param c the side of the player who is making the next move on the given board
+		 * @param lowerLimit the lower limit of the scores of this board's child boards
+		 * @param upperLimit the upper limit of the scores of the board's child boards
+		 * @return the score of this move (the score of the board after a particular move)
+		 */
+		public int findMoveScoreCaptureOnly (Board b, int depth, int ply, int c, int lowerLimit, int upperLimit)
+		{
+			// After the quiescent search has reached its maximum depth, use the static evaluation to obtain
+			// the score of the current board
+			if (depth == 1 || ply >= MAX_PLY - 1)
+				return evaluate(b, c);
+			
+			if (isOutOfTime())
+				return 0;
+			
+			int bestScore = -SCORE_INFINITY;
+			SearchParameters parameters = searchParameters;
+			
+			// Go through capture moves only, unless the player is in check and has to get out of it
+			// by any means, in which case having no moves is checkmate
+			boolean inCheck = b.isInCheck(c);
+			boolean quietChecks = !inCheck && parameters.quiescenceChecks && depth == captureSearchDepth;
+			MovePicker picker = movePickers[ply];
+			if (inCheck)
+				picker.init(b, c, Moves.NO_MOVE, Moves.NO_MOVE, Moves.NO_MOVE, Moves.NO_MOVE, null);
+			else
+				picker.initCaptures(b, c, quietChecks);
+			int move = picker.next();
+			if (move == Moves.NO_MOVE)
+				return inCheck ? -SCORE_MATE + ply : evaluate(b, c);
+			
+			boolean deltaPruning = parameters.deltaPruning && !inCheck;
+			int staticScore = deltaPruning ? evaluate(b, c) : 0;
+			for (; move != Moves.NO_MOVE; move = picker.next())
+			{
+				boolean quiet = !Moves.isCapture(move) && Moves.getFlag(move) != Moves.FLAG_PROMOTION;
+				
+				// Delta pruning: a capture that cannot reach the lower limit even with some positional
+				// gain on top of the material only counts as reaching that score
+				if (deltaPruning && Moves.isCapture(move)) {
+					int gain = Board.getPieceValue(Moves.getCaptured(move) % 6);
+					if (Moves.getFlag(move) == Moves.FLAG_PROMOTION)
+						gain += Board.getPieceValue(Moves.getPromotion(move)) - Board.getPieceValue(Board.PAWN);
+					int score = staticScore + gain + parameters.deltaMargin;
+					if (score <= lowerLimit) {
+						if (score > bestScore)
+							bestScore = score;
+						continue;
+					}
+				}
+				
+				b.makeMove(move);
+				
+				// Of the quiet moves, only the ones giving check are searched
+				if (quiet && !inCheck && !b.isInCheck(c ^ 1)) {
+					b.unmakeMove();
+					continue;
+				}
+				
+				// Evaluate the scores of all of this board's possible capture moves by the given player
+				int currentScore = -findMoveScoreCaptureOnly (b, depth - 1, ply + 1, c ^ 1, -upperLimit, -lowerLimit);
+				b.unmakeMove();
+				
+				if (currentScore > bestScore)
+					bestScore = currentScore;
+				
+				// Update bounds for alpha-beta pruning
+				if (currentScore > lowerLimit)
+					lowerLimit = currentScore;
+				
+				if (lowerLimit >= upperLimit)
+					return lowerLimit;
+			}
+			
+			// If there were only quiet moves and none of them gave check, the board is quiet
+			if (bestScore == -SCORE_INFINITY)
+				return evaluate(b, c);
+			return bestScore;
+		}
 	}
 	
 	/**
-	 * Recursively calculates the scores of moves using the minimax algorithm with alpha-beta pruning
-	 * @param b the current board to look ahead in
-	 * @param depth the current depth in this branch of the search
-	 * @param c the colour of the player who is making the next move on the given board
-	 * @param lowerLimit the lower limit of the scores of this board's child boards
-	 * @param upperLimit the upper limit of the scores of the board's child boards
-	 * @return the score of this move (the score of the board after a particular move)
+	 * Represents the search of a single move on the starting board in a root split search. The
+	 * move is searched against the best score found so far by any thread, and the score is then
+	 * published for the moves searched after it
+	 * @author agent
+	 * @version October 2026
 	 */
-	public int findMoveScore (Board b, int depth, Color c, int lowerLimit, int upperLimit)
+	protected class RootMoveTask extends RecursiveAction
 	{
-		// After the normal maximum depth is reached, proceed to quiescent search
-		if (depth == 1)
-			// return b.getScore(side)*(c == side ? 1 : -1);
-			return findMoveScoreCaptureOnly (b, captureSearchDepth, c, lowerLimit, upperLimit);
+		private static final long serialVersionUID = 1L;
+		
+		// The moves of the starting board and the index of the one to search
+		MoveList rootMoves;
+		int index;
 		
-		int bestScore = Integer.MIN_VALUE;
+		// The depth to search the move to
+		int depth;
 		
-		Color opponent = (c == Color.BLACK ? Color.WHITE : Color.BLACK);
+		// The principal variations of the moves of the starting board, in the same order
+		int [][] movePvs;
 		
-		// Look at all possible moves by the given player on the given board
-		PriorityQueue<Move> legalMoves = b.getAllPossibleMovesBySide(c);
-		while (!legalMoves.isEmpty())
+		/**
+		 * Constructs a new task to search a move on the starting board
+		 * @param rootMoves the moves of the starting board; the score is stored in its scores
+		 * @param index the index of the move to search
+		 * @param depth the depth to search the move to
+		 * @param movePvs the principal variations of the moves; the move's is stored in it
+		 */
+		public RootMoveTask (MoveList rootMoves, int index, int depth, int [][] movePvs)
 		{
-			Move currentMove = legalMoves.remove();
-			Board nextBoard = new Board (b);
-			nextBoard.makeMove(currentMove);
-			
-			// Recursively find the score of each possible move from the given board
-			int currentScore = -findMoveScore (nextBoard, depth - 1, opponent, -upperLimit, -lowerLimit);
+			this.rootMoves = rootMoves;
+			this.index = index;
+			this.depth = depth;
+			this.movePvs = movePvs;
+		}
+		
+		/**
+		 * Searches the move on the thread's own copy of the starting board
+		 */
+		protected void compute ()
+		{
+			if (stopSearch)
+				return;
 			
-			// Keep track of the highest
-			if (currentScore > bestScore)
-				bestScore = currentScore;
+			// Each thread keeps one searcher for the whole search, made the first time it gets a move
+			CpuThread searcher = rootSplitThreads.get();
+			if (searcher == null || searcher.searchNumber != searchCount) {
+				searcher = new CpuThread(rootBoard, rootMoves, 0);
+				rootSplitThreads.set(searcher);
+			}
 			
-			// Update bounds for alpha-beta pruning
-			if (currentScore > lowerLimit)
-				lowerLimit = currentScore;
+			int move = rootMoves.moves[index];
+			int score = searcher.searchRootMove(move, depth, rootLowerLimit.get(), SCORE_INFINITY, false);
+			if (stopSearch)
+				return;
+			rootMoves.scores[index] = score;
+			searcher.updatePv(0, move);
+			movePvs[index] = searcher.getRootPv();
 			
-			if (lowerLimit >= upperLimit)
-				return lowerLimit;
+			// Raise the shared best score if this move beat it
+			int best = rootLowerLimit.get();
+			while (score > best && !rootLowerLimit.compareAndSet(best, score))
+				best = rootLowerLimit.get();
 		}
+	}
+	
+	/**
+	 * Calculates the optimal move that this computer player should make on a given board
+	 * @param b the given board
+	 * @return an object specifying the move to make, or null if there are no legal moves
+	 */
+	public Move getNextMove (Board b)
+	{
+		long startTime = System.currentTimeMillis();
+		int cpuSide = Board.sideOf(side);
+		
+		// Generate all legal moves for this player on a copy of the board
+		Board root = new Board(b);
+		MoveList legalMoves = new MoveList();
+		root.generateMoves(cpuSide, legalMoves);
+		if (legalMoves.size == 0)
+			return null;
 		
-		// The score of this move or board is the optimal of those of its children
-		return bestScore;
+		// Put the best looking moves first
+		root.scoreMoves(legalMoves);
+		for (int i = 0; i < legalMoves.size; i++)
+			legalMoves.pickNext(i);
+		
+		transpositionTable.newSearch();
+		stopSearch = false;
+		searchStartTime = startTime;
+		hardDeadline = startTime + hardTimeLimit;
+		
+		rootBoard = root;
+		searchCount++;
+		
+		CpuThread mainThread;
+		if (searchMode == SEARCH_ROOT_SPLIT)
+			mainThread = searchWithRootSplit(root, legalMoves);
+		else
+			mainThread = searchWithLazySmp(root, legalMoves);
+		
+		String pv = "";
+		for (int move : mainThread.principalVariation)
+			pv += " " + Moves.toNotation(move);
+		System.out.println("AI took: " + (System.currentTimeMillis() - startTime) + "ms, depth " + mainThread.completedDepth
+				+ ", pv" + pv);
+		
+		// Return the best move found by the main thread
+		return b.toMove(mainThread.bestMove);
 	}
 	
 	/**
-	 * Recursively calculates the scores of moves using the minimax algorithm with alpha-beta pruning
-	 * This is the quiescent stage in which only possible capture moves are checked
-	 * @param b the current board to look ahead in
-	 * @param depth the current depth in this branch of the search
-	 * @param c the colour of the player who is making the next move on the given board
-	 * @param lowerLimit the lower limit of the scores of this board's child boards
-	 * @param upperLimit the upper limit of the scores of the board's child boards
-	 * @return the score of this move (the score of the board after a particular move)
+	 * Searches a board with every thread searching the whole tree, sharing the transposition table
+	 * @param root the board to search
+	 * @param legalMoves the legal moves on the board, best looking first
+	 * @return the main thread, holding the best move found
 	 */
-	public int findMoveScoreCaptureOnly (Board b, int depth, Color c, int lowerLimit, int upperLimit)
+	private CpuThread searchWithLazySmp (Board root, MoveList legalMoves)
 	{
-		// After the quiescent search has reached its maximum depth, use the static evaluation to obtain
-		// the score of the current board
-		if (depth == 1)
-			return b.getScore(side)*(c == side ? 1 : -1);
+		// Start one helper thread per extra CPU core, and run the main thread on this thread
+		Collection<Future<?>> futures = new LinkedList<Future<?>>();
+		for (int thread = 1; thread < cpuCount; thread++)
+			futures.add (threadPool.submit(new CpuThread(root, legalMoves, thread)));
+		CpuThread mainThread = new CpuThread(root, legalMoves, 0);
+		mainThread.run();
 		
-		int bestScore = Integer.MIN_VALUE;
+		// Wait for the helpers to stop
+		try {
+			for (Future<?> future : futures)
+				future.get();
+		} catch (Exception e) {
 		
-		Color opponent = (c == Color.BLACK ? Color.WHITE : Color.BLACK);
+		}
 		
-		// Go through capture moves only
-		PriorityQueue<Move> captureMoves = b.getAllCaptureMovesBySide(c);
-		if (captureMoves.size() == 0)
-			return b.getScore(side)*(c == side ? 1 : -1);
+		return mainThread;
+	}
+	
+	/**
+	 * Searches a board with iterative deepening, handing out the moves of the board to threads one
+	 * at a time. At every depth the first move is searched on its own to get a score for the other
+	 * moves to beat, and the rest are then searched in parallel in order, each against the best
+	 * score found so far (young brothers wait)
+	 * @param root the board to search
+	 * @param legalMoves the legal moves on the board, best looking first
+	 * @return the searcher of this thread, holding the best move found
+	 */
+	private CpuThread searchWithRootSplit (Board root, MoveList legalMoves)
+	{
+		CpuThread mainThread = new CpuThread(root, legalMoves, 0);
+		MoveList rootMoves = mainThread.rootMoves;
 		
-		while (!captureMoves.isEmpty())
+		for (int depth = 1; depth <= maxDepth && System.currentTimeMillis() - searchStartTime < softTimeLimit; depth++)
 		{
-			Move currentMove = captureMoves.remove();
-			Board nextBoard = new Board (b);
-			nextBoard.makeMove(currentMove);
+			// Search the first move alone
+			int [][] movePvs = new int [rootMoves.size][];
+			int score = mainThread.searchRootMove(rootMoves.moves[0], depth, -SCORE_INFINITY, SCORE_INFINITY, true);
+			if (stopSearch)
+				break;
+			rootMoves.scores[0] = score;
+			rootLowerLimit.set(score);
+			mainThread.updatePv(0, rootMoves.moves[0]);
+			movePvs[0] = mainThread.getRootPv();
 			
-			// Evaluate the scores of all of this board's possible capture moves by the given player
-			int currentScore = -findMoveScoreCaptureOnly (nextBoard, depth - 1, opponent, -upperLimit, -lowerLimit);
+			// Hand out the rest in order and wait for all of them
+			RootMoveTask [] tasks = new RootMoveTask [rootMoves.size - 1];
+			for (int i = 1; i < rootMoves.size; i++) {
+				tasks[i - 1] = new RootMoveTask(rootMoves, i, depth, movePvs);
+				forkJoinPool.execute(tasks[i - 1]);
+			}
+			for (RootMoveTask task : tasks)
+				task.join();
 			
-			if (currentScore > bestScore)
-				bestScore = currentScore;
+			// If the search was stopped part way through, keep the move of the last complete search
+			if (stopSearch)
+				break;
 			
-			// Update bounds for alpha-beta pruning
-			if (currentScore > lowerLimit)
-				lowerLimit = currentScore;
+			// The best move's principal variation has to be found before the moves are sorted
+			int best = 0;
+			for (int i = 1; i < rootMoves.size; i++) {
+				if (rootMoves.scores[i] > rootMoves.scores[best])
+					best = i;
+			}
+			mainThread.principalVariation = movePvs[best];
 			
-			if (lowerLimit >= upperLimit)
-				return lowerLimit;
+			for (int i = 0; i < rootMoves.size; i++)
+				rootMoves.pickNext(i);
+			mainThread.bestMove = rootMoves.moves[0];
+			mainThread.completedDepth = depth;
+			if (isMateWithin(rootMoves.scores[0], depth))
+				break;
 		}
 		
-		return bestScore;
+		return mainThread;
+	}
+	
+	/**
+	 * Converts a score from the search into the form stored in the transposition table. A mate score
+	 * counts plies from the starting board, but the same board can be reached at other plies, so it
+	 * is stored counting plies from the board itself instead
+	 * @param score the score of a board
+	 * @param ply the ply the board was searched at
+	 * @return the score to store
+	 */
+	private static int scoreToTable (int score, int ply)
+	{
+		if (score >= SCORE_MATE_BOUND)
+			return score + ply;
+		if (score <= -SCORE_MATE_BOUND)
+			return score - ply;
+		return score;
+	}
+	
+	/**
+	 * Converts a score stored in the transposition table back into a score for the search
+	 * @param score the stored score
+	 * @param ply the ply the board is being searched at
+	 * @return the score of the board, counting mates from the starting board
+	 */
+	private static int scoreFromTable (int score, int ply)
+	{
+		if (score >= SCORE_MATE_BOUND)
+			return score - ply;
+		if (score <= -SCORE_MATE_BOUND)
+			return score + ply;
+		return score;
+	}
+	
+	/**
+	 * Checks whether a score of the starting board is a mate, for either side, no further away than
+	 * a depth that has been searched
+	 * @param score the score of the starting board
+	 * @param depth the depth searched
+	 * @return true if the score is a mate within the depth, false otherwise
+	 */
+	private static boolean isMateWithin (int score, int depth)
+	{
+		return Math.abs(score) >= SCORE_MATE_BOUND && SCORE_MATE - Math.abs(score) <= depth;
+	}
+	
+	/**
+	 * Limits a score worked out with longs to the range of scores the search uses
+	 * @param score the score
+	 * @return the score, moved inside -SCORE_INFINITY to SCORE_INFINITY if it is outside
+	 */
+	private static int clampScore (long score)
+	{
+		return (int) Math.max(-SCORE_INFINITY, Math.min(SCORE_INFINITY, score));
 	}
 	
 	/**
@@ -286,6 +1078,90 @@ public class CpuPlayer extends Player {
 	 */
 	public void setQuiescentDepth (int depth)
 	{
+		// Stored scores depend on how deep the quiescent search went
+		if (depth != captureSearchDepth)
+			transpositionTable.clear();
 		captureSearchDepth = depth;
 	}
+	
+	/**
+	 * Sets the colour of this computer player
+	 * @param color the new colour of the player
+	 */
+	public void setColor (Color color)
+	{
+		// Stored scores are from the point of view of the old colour
+		if (color != side) {
+			transpositionTable.clear();
+			evaluationCache.clear();
+		}
+		super.setColor(color);
+	}
+	
+	/**
+	 * Sets the time limits of the search. No new depth is started once the soft limit has passed,
+	 * and the search is stopped at the hard limit, returning the best move of the last complete depth
+	 * @param softLimit the soft time limit in milliseconds
+	 * @param hardLimit the hard time limit in milliseconds
+	 */
+	public void setTimeLimits (int softLimit, int hardLimit)
+	{
+		softTimeLimit = softLimit;
+		hardTimeLimit = hardLimit;
+	}
+	
+	/**
+	 * Sets how the search is divided between threads
+	 * @param mode SEARCH_LAZY_SMP or SEARCH_ROOT_SPLIT
+	 */
+	public void setSearchMode (int mode)
+	{
+		searchMode = mode;
+	}
+	
+	/**
+	 * Sets whether cut-offs from null moves are checked with a real search at high depths, which
+	 * guards against positions where every move makes things worse (zugzwang)
+	 * @param verify true to check null move cut-offs, false to trust them
+	 */
+	public void setNullMoveVerification (boolean verify)
+	{
+		nullMoveVerification = verify;
+	}
+	
+	/**
+	 * Gets the settings of the pruning near the leaves of the search, which may be changed directly
+	 * @return the search parameters of this player
+	 */
+	public SearchParameters getSearchParameters ()
+	{
+		return searchParameters;
+	}
+	
+	/**
+	 * Sets the settings of the pruning near the leaves of the search
+	 * @param parameters the new search parameters
+	 */
+	public void setSearchParameters (SearchParameters parameters)
+	{
+		searchParameters = parameters;
+	}
+	
+	/**
+	 * Replaces the transposition table with an empty one of a given size
+	 * @param sizeInMB the most memory the table may take up, in megabytes
+	 */
+	public void setHashSize (int sizeInMB)
+	{
+		transpositionTable = new TranspositionTable(sizeInMB);
+	}
+	
+	/**
+	 * Replaces the evaluation cache with an empty one of a given size
+	 * @param sizeInMB the most memory the cache may take up, in megabytes
+	 */
+	public void setEvaluationCacheSize (int sizeInMB)
+	{
+		evaluationCache = new EvaluationCache(sizeInMB);
+	}
 }
@@ -0,0 +1,85 @@
+package com.birdchess.ai.core;
+
+import java.util.Arrays;
+
+import com.birdchess.ai.board.HashTables;
+
+/**
+ * A fixed size table of static evaluations indexed by board hash keys, shared by all of the
+ * search threads without any locking. As in TranspositionTable, every entry is two longs: the
+ * data, and the key exclusive or'ed with the data. Longs are not always written in one go, so an
+ * entry is only used if exclusive or'ing the two gives back the key being looked up, and an entry
+ * that another thread was halfway through writing is simply treated as missing. A board that
+ * lands on an entry holding another board replaces it
+ *
+ * @author agent
+ * @version October 2026
+ */
+public class EvaluationCache
+{
+	// Returned by probe when the board is not in the cache; no evaluation is ever this low
+	public static final int MISSING = Integer.MIN_VALUE;
+	
+	// Set in the data of every entry that has been stored, so that an empty entry never matches
+	private static final long STORED = 1L << 32;
+	
+	// The number of bytes taken up by each entry
+	private static final int ENTRY_SIZE = 16;
+	
+	// The key of every entry exclusive or'ed with its data, and the data of every entry: the score
+	// in the lower 32 bits and STORED above it
+	private final long [] keys;
+	private final long [] data;
+	
+	// Masks a key down to an index in the cache
+	private final int indexMask;
+	
+	/**
+	 * Constructs a new empty evaluation cache
+	 * @param sizeInMB the most memory the cache may take up, in megabytes
+	 */
+	public EvaluationCache (int sizeInMB)
+	{
+		int size = HashTables.entriesFor((long) sizeInMB * 1024 * 1024, ENTRY_SIZE);
+		
+		keys = new long [size];
+		data = new long [size];
+		indexMask = size - 1;
+	}
+	
+	/**
+	 * Removes every entry from the cache
+	 */
+	public void clear ()
+	{
+		Arrays.fill(keys, 0);
+		Arrays.fill(data, 0);
+	}
+	
+	/**
+	 * Looks up the evaluation of a board
+	 * @param key the hash key of the board
+	 * @return the stored evaluation, or MISSING if the board is not in the cache
+	 */
+	public int probe (long key)
+	{
+		int index = (int) key & indexMask;
+		long entry = data[index];
+		if ((keys[index] ^ entry) != key || entry == 0)
+			return MISSING;
+		return (int) entry;
+	}
+	
+	/**
+	 * Stores the evaluation of a board, replacing whatever was in its entry
+	 * @param key the hash key of the board
+	 * @param score the evaluation of the board
+	 */
+	public void store (long key, int score)
+	{
+		int index = (int) key & indexMask;
+		long entry = STORED | (score & 0xFFFFFFFFL);
+		keys[index] = key ^ entry;
+		data[index] = entry;
+	}
+}
@@ -0,0 +1,226 @@
+package com.birdchess.ai.core;
+
+import com.birdchess.ai.board.Board;
+import com.birdchess.ai.board.MoveList;
+import com.birdchess.ai.board.Moves;
+
+/**
+ * Hands out the moves of a board one at a time, best looking first, generating them in stages
+ * only when the search gets that far. Most boards are cut off after the first move or two, so
+ * most of the generating and sorting is never done. The stages are:
+ * 		the hash move from the transposition table, checked for legality but not generated,
+ * 		captures that do not lose material, by the material they win (see Board.see),
+ * 		killer moves (quiet moves that caused cut-offs on other boards at the same ply),
+ * 		the counter move (the quiet move that last caused a cut-off in reply to the opponent's move),
+ * 		quiet moves, by history score and then by position score,
+ * 		captures that lose material
+ * When only captures are picked, as in the quiescent search, captures that lose material are left
+ * out altogether, and quiet moves are only handed out if asked for, after the captures
+ *
+ * @author agent
+ * @version October 2026
+ */
+public class MovePicker
+{
+	// The stages of the picker, in order
+	private static final int STAGE_HASH_MOVE = 0;
+	private static final int STAGE_GENERATE_CAPTURES = 1;
+	private static final int STAGE_GOOD_CAPTURES = 2;
+	private static final int STAGE_KILLERS = 3;
+	private static final int STAGE_COUNTER_MOVE = 4;
+	private static final int STAGE_GENERATE_QUIETS = 5;
+	private static final int STAGE_QUIETS = 6;
+	private static final int STAGE_BAD_CAPTURES = 7;
+	private static final int STAGE_DONE = 8;
+	
+	// The board and the side whose moves are picked
+	private Board board;
+	private int side;
+	
+	// The stage the picker is in, and the index of the next move in the current list
+	private int stage;
+	private int index;
+	
+	// Whether only captures are picked, as in the quiescent search, and whether quiet moves are
+	// handed out after them anyway
+	private boolean capturesOnly;
+	private boolean includeQuiets;
+	
+	// The hash move, killer moves and counter move to try, as full packed moves once they are found
+	// to be legal
+	private int hashMove;
+	private int [] killers = new int [2];
+	private int counterMove;
+	
+	// The history scores of quiet moves indexed by side * 4096 + source square * 64 + target square,
+	// or null to order quiet moves by their position scores alone
+	private int [] history;
+	
+	// The generated captures and quiet moves
+	private final MoveList captures = new MoveList();
+	private final MoveList quiets = new MoveList();
+	
+	// The index in captures of the first capture that loses material, which are put off until the end
+	private int badCaptureIndex;
+	
+	/**
+	 * Gets the picker ready to hand out all of the moves of a board
+	 * @param board the board to pick the moves of
+	 * @param side the side to move
+	 * @param hashMove the move stored in the transposition table for the board, or Moves.NO_MOVE
+	 * @param killer1 the first killer move of the ply, or Moves.NO_MOVE
+	 * @param killer2 the second killer move of the ply, or Moves.NO_MOVE
+	 * @param counterMove the counter move to the opponent's last move, or Moves.NO_MOVE
+	 * @param history the history scores of quiet moves, or null
+	 */
+	public void init (Board board, int side, int hashMove, int killer1, int killer2, int counterMove, int [] history)
+	{
+		this.board = board;
+		this.side = side;
+		this.hashMove = hashMove;
+		killers[0] = killer1;
+		killers[1] = killer2;
+		this.counterMove = counterMove;
+		this.history = history;
+		capturesOnly = false;
+		stage = STAGE_HASH_MOVE;
+	}
+	
+	/**
+	 * Gets the picker ready to hand out the captures of a board that do not lose material, followed
+	 * by the quiet moves if asked for, such as for the quiet moves that give check to be picked out
+	 * @param board the board to pick the moves of
+	 * @param side the side to move
+	 * @param includeQuiets true to hand out the quiet moves after the captures, by position score
+	 */
+	public void initCaptures (Board board, int side, boolean includeQuiets)
+	{
+		this.board = board;
+		this.side = side;
+		hashMove = Moves.NO_MOVE;
+		killers[0] = Moves.NO_MOVE;
+		killers[1] = Moves.NO_MOVE;
+		counterMove = Moves.NO_MOVE;
+		history = null;
+		capturesOnly = true;
+		this.includeQuiets = includeQuiets;
+		stage = STAGE_GENERATE_CAPTURES;
+	}
+	
+	/**
+	 * Gets the next move to search
+	 * @return the next packed move, or Moves.NO_MOVE when there are no moves left
+	 */
+	public int next ()
+	{
+		while (true) {
+			switch (stage)
+			{
+			case STAGE_HASH_MOVE:
+				stage = STAGE_GENERATE_CAPTURES;
+				hashMove = board.toLegalMove(side, hashMove);
+				if (hashMove != Moves.NO_MOVE)
+					return hashMove;
+				break;
+			
+			case STAGE_GENERATE_CAPTURES:
+				board.generateCaptures(side, captures);
+				board.scoreCaptures(captures);
+				index = 0;
+				badCaptureIndex = captures.size;
+				stage = STAGE_GOOD_CAPTURES;
+				break;
+			
+			case STAGE_GOOD_CAPTURES:
+				while (index < captures.size) {
+					int move = captures.pickNext(index++);
+					
+					// The captures are picked best first, so once one loses material the rest do too
+					// and they are tried last, or never when only captures are picked
+					if (captures.scores[index - 1] < 0) {
+						badCaptureIndex = index - 1;
+						break;
+					}
+					if (Moves.isSameMove(move, hashMove))
+						continue;
+					return move;
+				}
+				index = 0;
+				if (!capturesOnly)
+					stage = STAGE_KILLERS;
+				else
+					stage = includeQuiets ? STAGE_GENERATE_QUIETS : STAGE_DONE;
+				break;
+			
+			case STAGE_KILLERS:
+				while (index < killers.length) {
+					int killer = killers[index++];
+					if (killer == Moves.NO_MOVE || Moves.isSameMove(killer, hashMove))
+						continue;
+					
+					// A killer from another board may be illegal here, or a capture here
+					killer = board.toLegalMove(side, killer);
+					if (killer != Moves.NO_MOVE && !Moves.isCapture(killer)) {
+						killers[index - 1] = killer;
+						return killer;
+					}
+					killers[index - 1] = Moves.NO_MOVE;
+				}
+				stage = STAGE_COUNTER_MOVE;
+				break;
+			
+			case STAGE_COUNTER_MOVE:
+				stage = STAGE_GENERATE_QUIETS;
+				if (counterMove == Moves.NO_MOVE || Moves.isSameMove(counterMove, hashMove)
+						|| Moves.isSameMove(counterMove, killers[0]) || Moves.isSameMove(counterMove, killers[1])) {
+					counterMove = Moves.NO_MOVE;
+					break;
+				}
+				counterMove = board.toLegalMove(side, counterMove);
+				if (counterMove != Moves.NO_MOVE && !Moves.isCapture(counterMove))
+					return counterMove;
+				counterMove = Moves.NO_MOVE;
+				break;
+			
+			case STAGE_GENERATE_QUIETS:
+				board.generateQuiets(side, quiets);
+				board.scoreMoves(quiets);
+				if (history != null) {
+					int base = side * 4096;
+					for (int i = 0; i < quiets.size; i++) {
+						int move = quiets.moves[i];
+						quiets.scores[i] += history[base + Moves.getSource(move) * 64 + Moves.getTarget(move)];
+					}
+				}
+				index = 0;
+				stage = STAGE_QUIETS;
+				break;
+			
+			case STAGE_QUIETS:
+				while (index < quiets.size) {
+					int move = quiets.pickNext(index++);
+					if (Moves.isSameMove(move, hashMove) || Moves.isSameMove(move, killers[0])
+							|| Moves.isSameMove(move, killers[1]) || Moves.isSameMove(move, counterMove))
+						continue;
+					return move;
+				}
+				index = 0;
+				stage = capturesOnly ? STAGE_DONE : STAGE_BAD_CAPTURES;
+				break;
+			
+			case STAGE_BAD_CAPTURES:
+				while (badCaptureIndex < captures.size) {
+					int move = captures.pickNext(badCaptureIndex++);
+					if (Moves.isSameMove(move, hashMove))
+						continue;
+					return move;
+				}
+				stage = STAGE_DONE;
+				break;
+			
+			default:
+				return Moves.NO_MOVE;
+			}
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.birdchess.ai.core;
+
+/**
+ * The settings of the pruning done near the leaves of a computer player's search, where the
+ * static evaluation of a board is trusted to show that some moves cannot matter, and of which
+ * moves the quiescent search looks at. Margins are in
+ * the same units as the evaluation, where a pawn is worth 100. The fields may be changed at any
+ * time and are read by the next search
+ *
+ * @author agent
+ * @version October 2026
+ */
+public class SearchParameters
+{
+	// Futility pruning: with at most futilityDepth plies left before the quiescent search, quiet
+	// moves are skipped if the static evaluation plus futilityMargin per ply left cannot reach the
+	// lower limit
+	public boolean futilityPruning;
+	public int futilityDepth;
+	public int futilityMargin;
+	
+	// Razoring: with at most razorDepth plies left before the quiescent search, a board whose static
+	// evaluation plus razorMargin per ply left is below the lower limit goes straight to the
+	// quiescent search, and is cut off if that cannot reach the lower limit either
+	public boolean razoring;
+	public int razorDepth;
+	public int razorMargin;
+	
+	// Delta pruning: in the quiescent search, captures are skipped if the static evaluation plus the
+	// value of the captured piece plus deltaMargin cannot reach the lower limit
+	public boolean deltaPruning;
+	public int deltaMargin;
+	
+	// Whether quiet moves that give check are searched as well as captures on the first ply of the
+	// quiescent search, which finds more mating attacks at the cost of more boards searched
+	public boolean quiescenceChecks;
+	
+	/**
+	 * Constructs a new set of search parameters with the default settings
+	 */
+	public SearchParameters ()
+	{
+		futilityPruning = true;
+		futilityDepth = 2;
+		futilityMargin = 150;
+		
+		razoring = true;
+		razorDepth = 2;
+		razorMargin = 300;
+		
+		deltaPruning = true;
+		deltaMargin = 200;
+		
+		quiescenceChecks = false;
+	}
+}
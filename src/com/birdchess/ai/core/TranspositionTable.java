@@ -0,0 +1,168 @@
+package com.birdchess.ai.core;
+
+import java.util.Arrays;
+
+import com.birdchess.ai.board.HashTables;
+
+/**
+ * A fixed size table of search results indexed by board hash keys, shared by all of the
+ * search threads without any locking. Every entry is two longs: the data, and the key
+ * exclusive or'ed with the data. An entry is only used if exclusive or'ing the two gives back
+ * the key being looked up, so an entry that another thread was halfway through writing is
+ * simply treated as missing
+ * 		bits 0-16: source square, target square, flag and promotion piece of the best move
+ * 		bits 17-23: depth searched
+ * 		bits 24-25: bound type
+ * 		bits 26-31: age of the search that stored the entry
+ * 		bits 32-63: score
+ *
+ * @author agent
+ * @version October 2026
+ */
+public class TranspositionTable
+{
+	// Types of scores stored in the table
+	public static final int BOUND_EXACT = 1;
+	public static final int BOUND_LOWER = 2;
+	public static final int BOUND_UPPER = 3;
+	
+	// The part of a packed move that is kept in the table; the moving and captured pieces
+	// are left out because they follow from the board
+	public static final int MOVE_MASK = 0x1FFFF;
+	
+	// The number of bytes taken up by each entry
+	private static final int ENTRY_SIZE = 16;
+	
+	// The key of every entry exclusive or'ed with its data, and the data of every entry
+	private final long [] keys;
+	private final long [] data;
+	
+	// Masks a key down to an index in the table
+	private final int indexMask;
+	
+	// The age of the current search, so that entries left over from old searches can be replaced
+	private int age;
+	
+	/**
+	 * Constructs a new empty transposition table
+	 * @param sizeInMB the most memory the table may take up, in megabytes
+	 */
+	public TranspositionTable (int sizeInMB)
+	{
+		int entries = HashTables.entriesFor((long) sizeInMB * 1024 * 1024, ENTRY_SIZE);
+		
+		keys = new long [entries];
+		data = new long [entries];
+		indexMask = entries - 1;
+	}
+	
+	/**
+	 * Removes every entry from the table
+	 */
+	public void clear ()
+	{
+		Arrays.fill(keys, 0);
+		Arrays.fill(data, 0);
+	}
+	
+	/**
+	 * Marks the start of a new search, so that entries stored by earlier searches are replaced first
+	 */
+	public void newSearch ()
+	{
+		age = (age + 1) & 63;
+	}
+	
+	/**
+	 * Looks up the entry of a board
+	 * @param key the hash key of the board
+	 * @return the data of the entry, or 0 if the board is not in the table
+	 */
+	public long probe (long key)
+	{
+		int index = (int) key & indexMask;
+		long entry = data[index];
+		if ((keys[index] ^ entry) != key)
+			return 0;
+		return entry;
+	}
+	
+	/**
+	 * Stores the result of searching a board. An entry from the current search is only replaced
+	 * by a result searched at least as deep
+	 * @param key the hash key of the board
+	 * @param depth the depth the board was searched to
+	 * @param bound BOUND_EXACT, or BOUND_LOWER if the score is a lower bound, or BOUND_UPPER if it is
+	 * 			an upper bound
+	 * @param score the score of the board for the side to move
+	 * @param move the best move found, or Moves.NO_MOVE if there is none
+	 */
+	public void store (long key, int depth, int bound, int score, int move)
+	{
+		int index = (int) key & indexMask;
+		long oldEntry = data[index];
+		boolean sameBoard = (keys[index] ^ oldEntry) == key;
+		
+		if (oldEntry != 0 && getAge(oldEntry) == age && getDepth(oldEntry) > depth)
+			return;
+		
+		// Keep the old best move if there is no new one for the same board
+		if ((move & MOVE_MASK) == 0 && sameBoard)
+			move = getMove(oldEntry);
+		
+		long entry = (move & MOVE_MASK) | ((long) Math.min(depth, 127) << 17) | ((long) bound << 24)
+				| ((long) age << 26) | ((long) score << 32);
+		keys[index] = key ^ entry;
+		data[index] = entry;
+	}
+	
+	/**
+	 * Gets the best move stored in an entry
+	 * @param entry the data of the entry
+	 * @return the stored part of the packed move (see MOVE_MASK), or 0 if there is none
+	 */
+	public static int getMove (long entry)
+	{
+		return (int) entry & MOVE_MASK;
+	}
+	
+	/**
+	 * Gets the depth stored in an entry
+	 * @param entry the data of the entry
+	 * @return the depth the board was searched to
+	 */
+	public static int getDepth (long entry)
+	{
+		return (int) (entry >>> 17) & 127;
+	}
+	
+	/**
+	 * Gets the bound type stored in an entry
+	 * @param entry the data of the entry
+	 * @return BOUND_EXACT, BOUND_LOWER or BOUND_UPPER
+	 */
+	public static int getBound (long entry)
+	{
+		return (int) (entry >>> 24) & 3;
+	}
+	
+	/**
+	 * Gets the score stored in an entry
+	 * @param entry the data of the entry
+	 * @return the score of the board for the side to move
+	 */
+	public static int getScore (long entry)
+	{
+		return (int) (entry >> 32);
+	}
+	
+	/**
+	 * Gets the age of the search that stored an entry
+	 * @param entry the data of the entry
+	 * @return the age of the entry
+	 */
+	private static int getAge (long entry)
+	{
+		return (int) (entry >>> 26) & 63;
+	}
+}
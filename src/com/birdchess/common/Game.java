@@ -145,6 +145,9 @@ public class Game {
 		cpuDepth = file.nextInt();
 		pastBoards.clear();
 		
+		// The player who did not move last is the one to move now
+		board.setSideToMove(lastMoved == Color.WHITE ? Board.SIDE_BLACK : Board.SIDE_WHITE);
+		
 		// Reset the AI setting to easy (default)
 		playerAssistant.setDepth(AI_EASY);
 		
@@ -468,18 +471,19 @@ public class Game {
 				if (lastMoved == playerSide)
 					return E_WRONG_TURN;
 				
-				Board b = new Board(board);
-				b.makeMove(m);
+				board.makeMove(m);
 				King king;
 				Position pos;
 				
 				if (playerSide == Color.WHITE)
-					pos = b.getWhiteKingPos();
+					pos = board.getWhiteKingPos();
 				else
-					pos = b.getBlackKingPos();
-				king = (King) b.getPiece(pos);
+					pos = board.getBlackKingPos();
+				king = (King) board.getPiece(pos);
+				boolean inCheck = king.isInCheck(board, pos);
+				board.unmakeMove();
 				
-				if (king.isInCheck(b, pos))
+				if (inCheck)
 					return E_MOVE_INTO_CHECK;
 				
 				// Store the legal move so that makeMove can use it directly
@@ -621,9 +625,8 @@ public class Game {
 		// Write what's in every board position into the file
 		for (int i = 0; i < 8; i++) {
 			for (int j = 0; j < 8; j++) {
-				Integer timesMoved = board.getPiecesMovedCount().get(board.getPiece(i, j));
 				file.write("" + (board.getPiece(i, j) == null ? -1 : board.getPiece(i, j).getPieceID())
-						+ " " + (timesMoved == null ? 0 : timesMoved.intValue())
+						+ " " + board.getTimesMoved(i, j)
 						+ " " + colorToLetter(board.getPiece(i, j)));
 				file.newLine();
 			}
@@ -1,7 +1,5 @@
 package com.birdchess.common;
 
-import java.awt.Color;
-
 import com.birdchess.ai.board.Board;
 import com.birdchess.ai.board.Piece;
 
@@ -22,6 +20,9 @@ public class Move implements Comparable<Move> {
 	// The board on which this move is to take place
 	public Board board;
 	
+	// The piece a pawn is promoted to by this move, or null to use the player's upgrade piece
+	public Piece promotion;
+	
 	/**
 	 * Constructs a new move object given the source, target, and board
 	 * @param src the position of the piece to move
@@ -66,7 +67,7 @@ public class Move implements Comparable<Move> {
 		}
 		return false;
 	}
-
+	
 	/**
 	 * Compares this Move to another based on a rough estimate of which is better
 	 * @param other the other Move to compare to
@@ -88,14 +89,9 @@ public class Move implements Comparable<Move> {
 		if (otherTarget != null)
 			difference += otherTarget.getPieceValue() - otherSource.getPieceValue();
 		
-		// Take into consideration the change in position score moving from the source to the target
-		if (currentSource.getColor() == Color.WHITE) {
-			difference += Board.whitePiecePositionScores[board.getTableVersion()][currentSource.getPieceID()][this.source.row][this.source.col]
-					- Board.whitePiecePositionScores[board.getTableVersion()][currentSource.getPieceID()][this.target.row][this.target.col];
-		} else {
-			difference += Board.whitePiecePositionScores[board.getTableVersion()][currentSource.getPieceID()][7-this.source.row][this.source.col]
-					- Board.whitePiecePositionScores[board.getTableVersion()][currentSource.getPieceID()][7-this.target.row][this.target.col];
-		}
+		// Take into consideration the change in position score moving from the source to the target,
+		// as the board's own evaluation scores it
+		difference -= board.getPositionChange(this.source, this.target);
 		
 		return difference;
 	}
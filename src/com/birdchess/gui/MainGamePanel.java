@@ -41,7 +41,7 @@ public class MainGamePanel extends JPanel {
 
 	//Variables used to animate a piece.
 	private Point animatingPiecePos;
-	private Piece animatingPiece;
+	private Position animatingPieceSource;
 
 	//The main frame
 	private MainGameFrame parentWindow;
@@ -318,7 +318,8 @@ public class MainGamePanel extends JPanel {
 					int originalY = yPos;
 
 					//Checks if a piece is being animated.
-					if (piece == animatingPiece)
+					if (animatingPieceSource != null && animatingPieceSource.row == row
+							&& animatingPieceSource.col == column)
 					{
 						//Move the animated piece by small increments.
 						xPos = animatingPiecePos.x;
@@ -672,7 +673,7 @@ public class MainGamePanel extends JPanel {
 	public void animatePiece (Position start, Position finish)
 	{
 		//Sets the piece being animated.
-		animatingPiece = game.getGameState().getPiece (start);
+		animatingPieceSource = start;
 
 		//Sets the x and y coordinates of the start and finish positions of the piece.
 		double x = start.col * SQUARE_SIZE;
@@ -695,7 +696,7 @@ public class MainGamePanel extends JPanel {
 
 		}
 		//Resets the animated piece.
-		animatingPiece = null;
+		animatingPieceSource = null;
 	}
 }
 